@@ -0,0 +1,208 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.Simulation;
+
+/**
+ * End to end scaling benchmark over the scenario catalogue (see Scenario).
+ * 
+ * Every scenario runs until the simulation converges, the step limit or the time limit per scenario is reached.
+ * Steps per second and heap retained by the simulation at the end are compared with the baseline.
+ * Results are printed as CSV, one line per scenario, which gives the scaling curve for every dimension.
+ * Time to convergence (step and seconds) is taken from the first run of a scenario alone, not from the repetitions.
+ * With a baseline (a CSV file written by --write-baseline) the benchmark fails with exit code 2
+ * when a scenario is slower or uses more heap than allowed.
+ * 
+ * Options:
+ * --scenarios name,name only run these scenarios.
+ * --max-miners n skip scenarios with more pool miners.
+ * --time-limit seconds per scenario (default 30).
+ * --min-seconds scenarios that finish faster are repeated until they ran this long together (default 1).
+ * --warmup seconds of running the first scenario before measuring (default 5).
+ * --baseline file compare with this baseline.
+ * --write-baseline file store the results as new baseline.
+ * --max-slowdown fraction of throughput that may be lost against the baseline (default 0.2).
+ * --max-heap-growth fraction of heap that may be added against the baseline (default 0.2).
+ * 
+ * Example: java -Xmx8g -cp simulation_pool_mining.jar benchmark.ScalingBenchmark --max-miners 100000 --baseline baseline.csv
+ */
+public class ScalingBenchmark {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for(int i = 0; i + 1 < args.length; i += 2){
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+
+        double timeLimit = Double.parseDouble(option(options, "time-limit", "30"));
+        double minSeconds = Double.parseDouble(option(options, "min-seconds", "1"));
+        int maxMiners = Integer.parseInt(option(options, "max-miners", Integer.toString(Integer.MAX_VALUE)));
+        List<Scenario> scenarios = new ArrayList<>();
+        for(Scenario s: Scenario.catalogue()){
+            if(s.getMiners() <= maxMiners && (!options.containsKey("scenarios") || ("," + options.get("scenarios") + ",").contains("," + s.getName() + ","))){
+                scenarios.add(s);
+            }
+        }
+        if(scenarios.isEmpty()){
+            System.err.println("No scenario selected");
+            System.exit(1);
+        }
+
+        warmup(scenarios.get(0), Double.parseDouble(option(options, "warmup", "5")));
+
+        List<ScenarioResult> results = new ArrayList<>();
+        System.out.println(ScenarioResult.CSV_HEADER);
+        for(Scenario s: scenarios){
+            ScenarioResult result = run(s, timeLimit, minSeconds);
+            results.add(result);
+            System.out.println(result.toCsv());
+        }
+
+        if(options.containsKey("write-baseline")){
+            try (PrintWriter out = new PrintWriter(new FileWriter(options.get("write-baseline")))) {
+                out.println(ScenarioResult.CSV_HEADER);
+                for(ScenarioResult result: results){
+                    out.println(result.toCsv());
+                }
+            }
+        }
+
+        if(options.containsKey("baseline")){
+            int regressions = compare(results, readBaseline(options.get("baseline")),
+                    Double.parseDouble(option(options, "max-slowdown", "0.2")),
+                    Double.parseDouble(option(options, "max-heap-growth", "0.2")));
+            if(regressions > 0){
+                System.err.println(regressions + " regression(s) against " + options.get("baseline"));
+                System.exit(2);
+            }
+        }
+    }
+
+    /**
+     * Run a scenario without recording results, so the measured runs use compiled code.
+     */
+    private static void warmup(Scenario s, double seconds){
+        long end = System.nanoTime() + (long) (seconds * 1e9);
+        while(System.nanoTime() < end){
+            Simulation sim = new Simulation(s.createConfig());
+            while(!sim.isFinished() && sim.getTime() < s.getMaxSteps() && System.nanoTime() < end){
+                sim.timeStep();
+            }
+        }
+    }
+
+    /**
+     * Measure one scenario. Runs that finish quickly are repeated until they took minSeconds together,
+     * steps, time and garbage collection are summed over all repetitions.
+     * Whether the scenario finished and when it converged are measured on the first run.
+     */
+    static ScenarioResult run(Scenario s, double timeLimit, double minSeconds){
+        int steps = 0;
+        double seconds = 0;
+        long gc = 0;
+        boolean finished = false;
+        long heap = 0;
+        int convergenceStep = -1;
+        double convergenceSeconds = -1;
+        boolean first = true;
+
+        while(seconds < minSeconds || steps == 0){
+            Simulation sim = new Simulation(s.createConfig());
+
+            long gcBefore = gcMillis();
+            long start = System.nanoTime();
+            long end = start + (long) (timeLimit * 1e9);
+            while(!sim.isFinished() && sim.getTime() < s.getMaxSteps() && System.nanoTime() < end){
+                sim.timeStep();
+            }
+            double runSeconds = (System.nanoTime() - start) / 1e9;
+            seconds += runSeconds;
+            gc += gcMillis() - gcBefore;
+            if(first){
+                finished = sim.isFinished();
+                if(sim.isConverged()){
+                    convergenceStep = sim.getTime();
+                    convergenceSeconds = runSeconds;
+                }
+                first = false;
+            }
+
+            // Heap retained by the simulation: difference between used heap with and without it.
+            // The simulation is read after the first measurement, so it is still reachable during it.
+            long heapWith = usedHeapAfterGc();
+            steps += sim.getTime();
+            sim = null;
+            heap = heapWith - usedHeapAfterGc();
+        }
+
+        return new ScenarioResult(s.getName(), s.getMiners(), s.getPools(), s.getSolo(), steps, finished, seconds, heap, gc,
+                convergenceStep, convergenceSeconds);
+    }
+
+    /**
+     * @return amount of regressions, each of which is reported on standard error.
+     */
+    static int compare(List<ScenarioResult> results, Map<String, ScenarioResult> baseline, double maxSlowdown, double maxHeapGrowth){
+        int regressions = 0;
+        for(ScenarioResult result: results){
+            ScenarioResult base = baseline.get(result.getName());
+            if(base == null){
+                continue;
+            }
+            if(result.getStepsPerSecond() < base.getStepsPerSecond() * (1 - maxSlowdown)){
+                System.err.printf("%s: %.1f steps/s, baseline %.1f%n", result.getName(), result.getStepsPerSecond(), base.getStepsPerSecond());
+                regressions++;
+            }
+            if(result.getHeapBytes() > base.getHeapBytes() * (1 + maxHeapGrowth)){
+                System.err.printf("%s: %d heap bytes, baseline %d%n", result.getName(), result.getHeapBytes(), base.getHeapBytes());
+                regressions++;
+            }
+        }
+        return regressions;
+    }
+
+    static Map<String, ScenarioResult> readBaseline(String file) throws IOException {
+        Map<String, ScenarioResult> baseline = new HashMap<>();
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            String line = in.readLine();
+            while((line = in.readLine()) != null){
+                if(!line.trim().isEmpty()){
+                    ScenarioResult result = ScenarioResult.fromCsv(line);
+                    baseline.put(result.getName(), result);
+                }
+            }
+        }
+        return baseline;
+    }
+
+    private static long usedHeapAfterGc(){
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++){
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long gcMillis(){
+        long total = 0;
+        for(GarbageCollectorMXBean gc: ManagementFactory.getGarbageCollectorMXBeans()){
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static String option(Map<String, String> options, String name, String defaultValue){
+        return options.containsKey(name) ? options.get(name) : defaultValue;
+    }
+}
@@ -0,0 +1,82 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import model.SimulationConfig;
+
+/**
+ * Canonical benchmark scenario: a fixed configuration and seed with a step limit.
+ */
+public class Scenario {
+
+    /**
+     * Seed used by every scenario, so results are comparable between runs.
+     */
+    static final long SEED = 42;
+
+    private final String name;
+    private final int miners;
+    private final int pools;
+    private final int solo;
+    private final int maxSteps;
+    /**
+     * Search radius of best responses, 0 for exhaustive search (which is infeasible for many pools).
+     */
+    private final int searchRadius;
+
+    public Scenario(String name, int miners, int pools, int solo, int maxSteps, int searchRadius){
+        this.name = name;
+        this.miners = miners;
+        this.pools = pools;
+        this.solo = solo;
+        this.maxSteps = maxSteps;
+        this.searchRadius = searchRadius;
+    }
+
+    /**
+     * Scenarios that scale one dimension at a time:
+     * -miners from 1e2 to 1e6 in 2 pools.
+     * -pools from 2 to 64 with 1000 miners.
+     * -solo miners from 0 to 1e4 next to 1000 pool miners in 2 pools.
+     */
+    public static List<Scenario> catalogue(){
+        List<Scenario> scenarios = new ArrayList<>();
+        for(int miners = 100; miners <= 1000000; miners *= 10){
+            scenarios.add(new Scenario("miners-" + miners, miners, 2, 0, 20000, 0));
+        }
+        for(int pools = 2; pools <= 64; pools *= 2){
+            scenarios.add(new Scenario("pools-" + pools, 1000, pools, 0, 20000, pools > 2 ? 2 : 0));
+        }
+        for(int solo = 0; solo <= 10000; solo = solo == 0 ? 100 : solo * 10){
+            scenarios.add(new Scenario("solo-" + solo, 1000, 2, solo, 20000, 0));
+        }
+        return scenarios;
+    }
+
+    public SimulationConfig createConfig(){
+        SimulationConfig config = new SimulationConfig(miners, pools, solo, SEED);
+        config.setLocalSearchRadius(searchRadius);
+        return config;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMiners() {
+        return miners;
+    }
+
+    public int getPools() {
+        return pools;
+    }
+
+    public int getSolo() {
+        return solo;
+    }
+
+    public int getMaxSteps() {
+        return maxSteps;
+    }
+}
@@ -0,0 +1,103 @@
+package benchmark;
+
+import java.util.Locale;
+
+/**
+ * Measurements of one scenario.
+ */
+public class ScenarioResult {
+
+    private final String name;
+    private final int miners;
+    private final int pools;
+    private final int solo;
+    /**
+     * Steps run (over all repetitions), whether the first run converged (or cycled) and the time all repetitions took.
+     */
+    private final int steps;
+    private final boolean finished;
+    private final double seconds;
+    /**
+     * Step at which the first run converged and the seconds it took until then, both -1 if it did not converge.
+     */
+    private final int convergenceStep;
+    private final double convergenceSeconds;
+    /**
+     * Heap retained by the simulation at the end of the run and garbage collection time during the run.
+     */
+    private final long heapBytes;
+    private final long gcMillis;
+
+    public ScenarioResult(String name, int miners, int pools, int solo, int steps, boolean finished, double seconds, long heapBytes, long gcMillis,
+            int convergenceStep, double convergenceSeconds){
+        this.name = name;
+        this.miners = miners;
+        this.pools = pools;
+        this.solo = solo;
+        this.steps = steps;
+        this.finished = finished;
+        this.seconds = seconds;
+        this.heapBytes = heapBytes;
+        this.gcMillis = gcMillis;
+        this.convergenceStep = convergenceStep;
+        this.convergenceSeconds = convergenceSeconds;
+    }
+
+    static final String CSV_HEADER = "scenario,miners,pools,solo,steps,finished,seconds,steps per second,heap bytes,gc millis,convergence step,convergence seconds";
+
+    /**
+     * @return measurements as one line in the format of CSV_HEADER.
+     */
+    public String toCsv(){
+        return name + ',' + miners + ',' + pools + ',' + solo + ',' + steps + ',' + finished + ','
+                + String.format(Locale.ROOT, "%.3f,%.1f", seconds, getStepsPerSecond()) + ',' + heapBytes + ',' + gcMillis + ','
+                + convergenceStep + ',' + String.format(Locale.ROOT, "%.3f", convergenceSeconds);
+    }
+
+    /**
+     * Read a line written by toCsv, lines of older baselines without convergence columns are accepted.
+     */
+    public static ScenarioResult fromCsv(String line){
+        String[] f = line.split(",");
+        boolean convergence = f.length > 11;
+        return new ScenarioResult(f[0], Integer.parseInt(f[1]), Integer.parseInt(f[2]), Integer.parseInt(f[3]),
+                Integer.parseInt(f[4]), Boolean.parseBoolean(f[5]), Double.parseDouble(f[6]), Long.parseLong(f[8]), Long.parseLong(f[9]),
+                convergence ? Integer.parseInt(f[10]) : -1, convergence ? Double.parseDouble(f[11]) : -1);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public double getSeconds() {
+        return seconds;
+    }
+
+    public double getStepsPerSecond() {
+        return seconds > 0 ? steps / seconds : 0;
+    }
+
+    public long getHeapBytes() {
+        return heapBytes;
+    }
+
+    public long getGcMillis() {
+        return gcMillis;
+    }
+
+    public int getConvergenceStep() {
+        return convergenceStep;
+    }
+
+    public double getConvergenceSeconds() {
+        return convergenceSeconds;
+    }
+}
@@ -1,13 +1,15 @@
 package controller;
 
+import model.EventBus;
 import model.Simulation;
+import model.SimulationEvent;
+import model.SimulationListener;
+import model.SimulationSnapshot;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.Observable;
 import java.util.concurrent.TimeUnit;
 import java.awt.event.ActionListener;
-import java.util.Observer;
 import java.awt.event.ActionEvent;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -15,7 +17,7 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
 /**
  * Controlls play button.
  */
-public class ButtonPanel extends JPanel implements ActionListener, Observer {
+public class ButtonPanel extends JPanel implements ActionListener, SimulationListener<SimulationEvent.StepCompleted> {
     private Simulation sim;
     private ScheduledFuture<?> updateLoop;
     private TableController t;
@@ -27,7 +29,8 @@ public class ButtonPanel extends JPanel implements ActionListener, Observer {
     public ButtonPanel(Simulation sim){
         this.sim = sim;
         this.t = new TableController(sim);
-        this.sim.addObserver(this);
+        this.sim.getEvents().subscribe(SimulationEvent.StepCompleted.class, this,
+                MainController.SWING_EXECUTOR, EventBus.Backpressure.COALESCE, 1);
         this.showTime = new JLabel();
         this.scheduler = new ScheduledThreadPoolExecutor(1);
 
@@ -119,12 +122,16 @@ public class ButtonPanel extends JPanel implements ActionListener, Observer {
     }
 
     /**
-     * Update displayed time step and amount of solo miners.
+     * Update displayed table, time step and amount of solo miners from the latest snapshot.
      */
     @Override
-    public void update(Observable source, Object arg) {
-        t.getPtm().fireTableDataChanged();
-        showTime.setText("Time step: " + this.sim.getTime());
-        solo.setText("Amount solo miners: " + this.sim.getAmountSoloMiners());
+    public void onEvent(SimulationEvent.StepCompleted event) {
+        SimulationSnapshot snapshot = sim.getSnapshot();
+        if(snapshot == null){
+            return;
+        }
+        t.getPtm().setSnapshot(snapshot);
+        showTime.setText("Time step: " + snapshot.getTime());
+        solo.setText("Amount solo miners: " + snapshot.getAmountSoloMiners());
     }
 }
@@ -1,18 +1,32 @@
 package controller;
 
+import model.EventBus;
 import model.Simulation;
+import model.SimulationConfig;
+import model.SimulationEvent;
+import model.SimulationListener;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.Observable;
-import java.util.Observer;
 import java.util.Random;
+import java.util.concurrent.Executor;
+
+public class MainController implements SimulationListener<SimulationEvent.StepCompleted> {
+    /**
+     * Runs event listeners on the Swing event dispatch thread.
+     */
+    static final Executor SWING_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            SwingUtilities.invokeLater(command);
+        }
+    };
 
-public class MainController implements Observer {
     static JFrame window;
     private Simulation currentSimulation;
+    private EventBus.Subscription<SimulationEvent.StepCompleted> subscription;
     private JPanel pane;
     private int amountAgents;
     private int amountPools;
@@ -108,8 +122,12 @@ public class MainController implements Observer {
         this.amountPools = amountPools;
         this.amountSim = amountSim - 1;
 
-        currentSimulation = new Simulation(amountAgents, amountPools, amountSoloM);
-        currentSimulation.addObserver(this);
+        // The table and the buttons read the state of every step from snapshots.
+        SimulationConfig config = new SimulationConfig(amountAgents, amountPools, amountSoloM);
+        config.setSnapshotInterval(1);
+        currentSimulation = new Simulation(config);
+        subscription = currentSimulation.getEvents().subscribe(SimulationEvent.StepCompleted.class, this,
+                SWING_EXECUTOR, EventBus.Backpressure.COALESCE, 1);
         window = createAndShowGUI();
     }
 
@@ -124,7 +142,6 @@ public class MainController implements Observer {
         pane = new JPanel(new GridLayout(1, 2));
 
         bp = new ButtonPanel(currentSimulation);
-        currentSimulation.addObserver(bp);
         pane.add(bp);
 
         frame.add(pane);
@@ -148,13 +165,18 @@ public class MainController implements Observer {
     /**
      * Get simulation parameters and update the whole game.
      */
-    public void update(Observable source, Object arg) {
-        // If the simulation has converged.
-        if(currentSimulation.isConverged()){
+    @Override
+    public void onEvent(SimulationEvent.StepCompleted event) {
+        // If the simulation has converged or will never converge.
+        if(event.isFinished()){
+            subscription.cancel();
+            if(event.getCycleLength() > 0){
+                System.out.println("Cycle detected, length: " + event.getCycleLength());
+            }
             deletePrevGUI();
             //Start next simulation with new parameters.
             if(amountSim > 0) {
-                System.out.println("Convergence Time: " + currentSimulation.getTime());
+                System.out.println("Convergence Time: " + event.getTime());
                 if(counter > 1){
                     counter --;
                     startSimulations(amountAgents, amountPools, amountSoloM, amountSim);
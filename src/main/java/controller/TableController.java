@@ -6,7 +6,6 @@ import javax.swing.*;
 import javax.swing.table.AbstractTableModel;
 import javax.swing.event.TableModelListener;
 import java.awt.*;
-import java.util.ArrayList;
 import javax.swing.event.TableModelEvent;
 
 /**
@@ -71,22 +70,29 @@ public class TableController extends JPanel{
                 "Revenue for the whole game if noone attack"
         };
 
-        private ArrayList<Pool> pools;
-        private double[] revenues;
+        /**
+         * State shown in the table, replaced as a whole on every update.
+         */
+        private SimulationSnapshot snapshot;
 
         public PoolTableModel(Simulation sim) {
-            this.pools = new ArrayList<>(sim.getPools());
-            this.revenues = sim.getPoolRevenues();
+            this.snapshot = sim.getSnapshot();
             addTableModelListener(this);
         }
 
-        public Pool getPool(int row) {
-            return pools.get(row);
+        /**
+         * Show a new state, called on the event dispatch thread.
+         */
+        public void setSnapshot(SimulationSnapshot snapshot) {
+            if(snapshot != null){
+                this.snapshot = snapshot;
+                fireTableDataChanged();
+            }
         }
 
         @Override
         public int getRowCount() {
-            return pools.size();
+            return snapshot.getAmountPools();
         }
 
         @Override
@@ -101,21 +107,19 @@ public class TableController extends JPanel{
 
         @Override
         public Object getValueAt(int row, int column) {
-            Pool pool = this.getPool(row);
-
             switch (column) {
                 case 0:
-                    return pool.getId();
+                    return row;
                 case 1:
-                    return pool.getMembers().size();
+                    return snapshot.getMembers(row);
                 case 2:
-                    return revenues[pool.getId()];
+                    return snapshot.getRevenue(row);
                 case 3:
-                    return pool.getSabotagers().size();
+                    return snapshot.getSabotagers(row);
                 case 4:
-                    return pool.getIncomeWholeGame();
+                    return snapshot.getIncomeWholeGame(row);
                 case 5:
-                    return pool.getIncomeWholeGameNooneattack();
+                    return snapshot.getIncomeWholeGameNooneAttack(row);
                 default:
                     return null;
             }
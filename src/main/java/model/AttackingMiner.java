@@ -38,7 +38,7 @@ public class AttackingMiner extends Miner{
      * Calculate own current revenue density.
      */
     public void calculateOwnRevDen(){
-		this.setOwnRevDen(getSim().getPools().get(poolId).getRevenueDensity() * (1 - getSim().getPools().get(poolId).getContributionFees())); 
+		this.setOwnRevDen(getSim().getEffectiveDensity(poolId));
 	}
 
     /**
@@ -50,54 +50,62 @@ public class AttackingMiner extends Miner{
 
     /**
      * Joins other pool if it is more profitable OR decides to mine solo.
-     * 
-     * @param placeRoundRobin place in the array of miners (in the simulation).
      */
-    public void changePool(int placeRoundRobin){
-        Pool candidatePool = null;
+    int choosePool(){
         double bestDen = getOwnRevDen();
 
-        // Loop through all pools and try to find own with higher revenue density.
-        for(Pool p: getSim().getPools()){
-            if((p.getRevenueDensity()*(1 - p.getContributionFees())) > bestDen || Double.isNaN(bestDen)){
-                bestDen = p.getRevenueDensity()*(1 - p.getContributionFees());
-                candidatePool = p;
+        // Find the pool with the highest revenue density and check whether it is higher than own.
+        Pool best = getSim().getBestPool();
+        if(best != null){
+            double den = getSim().getEffectiveDensity(best.getId());
+            // Without an own density any pool is better, the last one if no pool has a density either.
+            if(den > bestDen || Double.isNaN(bestDen)){
+                return Double.isNaN(den) ? getSim().getPools().size() - 1 : best.getId();
             }
         }
 
+        // Becomes solo miner if it is more profitable.
+        if(bestDen < 1/getSim().getMiningPower()){
+            return SOLO;
+        }
+        return STAY;
+    }
+
+    /**
+     * Stop sabotaging and become honest miner in the given pool.
+     * 
+     * @param candidatePool pool to join.
+     */
+    void joinPool(Pool candidatePool){
         Pool ownPool = getSim().getPools().get(poolId);
         Pool attackedPool = getSim().getPools().get(attackedPoolId);
 
-        // If such pool exists, become honest miner in that pool.
-        if(candidatePool != null){
-            ArrayList<Miner> attackedPoolMembers = attackedPool.getMembers();
+        attackedPool.removeMember(this);
+        attackedPool.decreaseOwnInfiltrationRate();
+        ownPool.changeInfiltrationRate(attackedPoolId, -1);
 
-            attackedPoolMembers.remove(this);
-            attackedPool.setOwnInfiltrationRate(attackedPool.getOwnInfiltrationRate() - 1);
-            ownPool.getInfiltrationRates()[attackedPoolId] -= 1;
-            attackedPool.setMembers(attackedPoolMembers);
+        HonestMiner newhm = new HonestMiner(getSim(), getId(), candidatePool.getId());
+        candidatePool.addMember(newhm);
 
-            ArrayList<Miner> newMembers = candidatePool.getMembers();
-            HonestMiner newhm = new HonestMiner(getSim(), getId(), candidatePool.getId());
-            newMembers.add(newhm);
-            candidatePool.setMembers(newMembers);
+        ownPool.removeSabotager(this);
 
-            ArrayList<AttackingMiner> newSabotagers = ownPool.getSabotagers();
-            newSabotagers.remove(this);
-            ownPool.setSabotagers(newSabotagers);
+        getSim().replaceMiner(this, newhm);
+        getSim().recordMove(getId(), candidatePool.getId());
+    }
 
-            getSim().getMiners().remove(this);
-            getSim().getMiners().add(placeRoundRobin, newhm);
-        } 
-        // Becomes solo miner if it is more profitable.
-        else if(bestDen < 1/getSim().getMiningPower()){
-            ownPool.getSabotagers().remove(this);
-            attackedPool.getMembers().remove(this);
-            ownPool.getInfiltrationRates()[attackedPoolId] -= 1;
-            getSim().getMiners().remove(this);
-            SoloMiner sm = new SoloMiner(getSim(), getId());
-            getSim().getMiners().add(placeRoundRobin, sm);
-        }
+    /**
+     * Stop sabotaging and become solo miner.
+     */
+    void mineSolo(){
+        Pool ownPool = getSim().getPools().get(poolId);
+        Pool attackedPool = getSim().getPools().get(attackedPoolId);
+
+        ownPool.removeSabotager(this);
+        attackedPool.removeMember(this);
+        ownPool.changeInfiltrationRate(attackedPoolId, -1);
+        SoloMiner sm = new SoloMiner(getSim(), getId());
+        getSim().replaceMiner(this, sm);
+        getSim().recordMove(getId(), -1);
     }
 
     public int getPoolId(){
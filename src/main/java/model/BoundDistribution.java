@@ -0,0 +1,98 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Separates miners by id into consecutive ranges, one per pool.
+ * Miners below the first bound start in pool 0, miners from the first below the second bound in pool 1 and so on.
+ * Miners from the last bound on start in the next pool.
+ */
+public class BoundDistribution implements MinerDistribution {
+
+    static final String BOUNDS = "bounds";
+    static final String SIZES = "sizes";
+
+    /**
+     * Non-decreasing bounds between consecutive pools.
+     */
+    private final int[] bounds;
+    /**
+     * Whether the distribution was given as pool sizes, which then have to add up to the amount of miners.
+     */
+    private final boolean sizes;
+
+    public BoundDistribution(int... bounds){
+        this(bounds, false);
+    }
+
+    private BoundDistribution(int[] bounds, boolean sizes){
+        for(int i = 1; i < bounds.length; i++){
+            if(bounds[i] < bounds[i - 1]){
+                throw new IllegalArgumentException("Bounds have to be non-decreasing: " + Arrays.toString(bounds));
+            }
+        }
+        this.bounds = bounds.clone();
+        this.sizes = sizes;
+    }
+
+    /**
+     * @param sizes amount of miners in every pool.
+     * @return distribution that fills pools in order with the given amount of miners.
+     */
+    public static BoundDistribution ofSizes(int... sizes){
+        int[] bounds = new int[sizes.length];
+        int sum = 0;
+        for(int i = 0; i < sizes.length; i++){
+            if(sizes[i] < 0){
+                throw new IllegalArgumentException("Negative pool size: " + Arrays.toString(sizes));
+            }
+            sum += sizes[i];
+            bounds[i] = sum;
+        }
+        return new BoundDistribution(bounds, true);
+    }
+
+    public int[] assign(int amountMiners, int amountPools, Random rand){
+        int ranges = sizes ? bounds.length : bounds.length + 1;
+        if(ranges > amountPools){
+            throw new IllegalArgumentException(this + " needs " + ranges + " pools but there are " + amountPools);
+        }
+        if(sizes && (bounds.length == 0 ? 0 : bounds[bounds.length - 1]) != amountMiners){
+            throw new IllegalArgumentException(this + " does not add up to " + amountMiners + " miners");
+        }
+
+        int[] pools = new int[amountMiners];
+        int pool = 0;
+        for(int i = 0; i < amountMiners; i++){
+            while(pool < bounds.length && i >= bounds[pool]){
+                pool++;
+            }
+            pools[i] = pool;
+        }
+        return pools;
+    }
+
+    @Override
+    public String toString(){
+        if(!sizes){
+            return BOUNDS + ":" + join(bounds);
+        }
+        int[] s = new int[bounds.length];
+        for(int i = 0; i < bounds.length; i++){
+            s[i] = bounds[i] - (i > 0 ? bounds[i - 1] : 0);
+        }
+        return SIZES + ":" + join(s);
+    }
+
+    private static String join(int[] values){
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < values.length; i++){
+            if(i > 0){
+                sb.append(',');
+            }
+            sb.append(values[i]);
+        }
+        return sb.toString();
+    }
+}
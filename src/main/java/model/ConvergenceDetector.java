@@ -0,0 +1,167 @@
+package model;
+
+/**
+ * Decides when a simulation has settled, as an alternative to requiring exactly equal revenue densities
+ * for as many steps as there are miners.
+ * 
+ * Two criteria, either of which is sufficient:
+ * -quiet steps: no miner or pool changed its revenue density by more than the tolerance for the given amount of steps.
+ *  Once the simulation is settling, only changes beyond the tolerance times the hysteresis factor interrupt it.
+ * -window: over the last steps, the loyal miners and revenue density of every pool stay within the tolerance
+ *  of their mean and show no trend.
+ */
+public class ConvergenceDetector {
+
+    private final double relativeTolerance;
+    private final double absoluteTolerance;
+    private final double hysteresis;
+    /**
+     * Required amount of consecutive quiet steps, 0 to only use the window.
+     */
+    private final int quietSteps;
+    /**
+     * Length of the window, 0 to only use quiet steps.
+     */
+    private final int window;
+
+    private int quietCount = 0;
+    /**
+     * Ring buffers with loyal miners and revenue density of every pool over the last steps.
+     */
+    private final double[][] sizes;
+    private final double[][] densities;
+    private int samples = 0;
+
+    /**
+     * @param config settings of the detector, at least one of quiet steps and window has to be positive.
+     */
+    public ConvergenceDetector(SimulationConfig config){
+        if(config.getConvergenceQuietSteps() <= 0 && config.getConvergenceWindow() <= 0){
+            throw new IllegalArgumentException("Tolerant convergence needs a positive amount of quiet steps or a positive window, "
+                    + "otherwise the simulation never converges");
+        }
+        this.relativeTolerance = config.getConvergenceRelativeTolerance();
+        this.absoluteTolerance = config.getConvergenceAbsoluteTolerance();
+        this.hysteresis = config.getConvergenceHysteresis();
+        this.quietSteps = config.getConvergenceQuietSteps();
+        this.window = config.getConvergenceWindow();
+        this.sizes = new double[config.getAmountPools()][Math.max(window, 1)];
+        this.densities = new double[config.getAmountPools()][Math.max(window, 1)];
+    }
+
+    /**
+     * Take the state after a step into account.
+     * 
+     * @param sim simulation after the step.
+     * @return whether the simulation has settled.
+     */
+    public boolean update(Simulation sim){
+        boolean converged = false;
+
+        if(quietSteps > 0){
+            if(isQuiet(sim, quietCount > 0 ? hysteresis : 1.0)){
+                quietCount++;
+            } else {
+                quietCount = 0;
+            }
+            converged = quietCount >= quietSteps;
+        }
+
+        if(window > 0){
+            int slot = samples % window;
+            for(Pool p: sim.getPools()){
+                sizes[p.getId()][slot] = p.getLoyalMiners();
+                densities[p.getId()][slot] = p.getRevenueDensity();
+            }
+            samples++;
+
+            if(samples >= window && !converged){
+                converged = true;
+                for(int i = 0; i < sizes.length && converged; i++){
+                    converged = isSteady(sizes[i], slot) && isSteady(densities[i], slot);
+                }
+            }
+        }
+
+        return converged;
+    }
+
+    /**
+     * @param factor multiple of the tolerance that still counts as quiet.
+     * @return whether no miner and no pool changed its revenue density by more than the tolerance.
+     */
+    private boolean isQuiet(Simulation sim, double factor){
+        for(Miner m: sim.getMiners()){
+            if(changed(m.getOwnRevDenPrevRound(), m.getOwnRevDen(), factor)){
+                return false;
+            }
+        }
+        for(Pool p: sim.getPools()){
+            if(changed(p.getRevenueDensityPrevRound(), p.getRevenueDensity(), factor)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Like the exact check of the simulation, a value that became NaN does not count as a change.
+     */
+    private boolean changed(double prev, double current, double factor){
+        if(Double.isNaN(current)){
+            return false;
+        }
+        if(Double.isNaN(prev)){
+            return true;
+        }
+        return Math.abs(current - prev) > factor * tolerance(Math.max(Math.abs(current), Math.abs(prev)));
+    }
+
+    private double tolerance(double magnitude){
+        return absoluteTolerance + relativeTolerance * magnitude;
+    }
+
+    /**
+     * A series is steady if every value lies within the tolerance of the mean
+     * and the least squares trend over the window stays within the tolerance too.
+     * Series that are NaN throughout (empty pools) are steady, partly NaN series are not.
+     * 
+     * @param values ring buffer of the last values.
+     * @param newest slot of the newest value.
+     */
+    private boolean isSteady(double[] values, int newest){
+        int nans = 0;
+        double sum = 0;
+        for(double v: values){
+            if(Double.isNaN(v)){
+                nans++;
+            } else {
+                sum += v;
+            }
+        }
+        if(nans == window){
+            return true;
+        }
+        if(nans > 0){
+            return false;
+        }
+
+        double mean = sum / window;
+        double tol = tolerance(Math.abs(mean));
+        double centre = (window - 1) / 2.0;
+        double covariance = 0;
+        double variance = 0;
+        for(int k = 0; k < window; k++){
+            // Oldest value is the one after the newest in the ring buffer.
+            double v = values[(newest + 1 + k) % window];
+            if(Math.abs(v - mean) > tol){
+                return false;
+            }
+            covariance += (k - centre) * (v - mean);
+            variance += (k - centre) * (k - centre);
+        }
+
+        double slope = variance > 0 ? covariance / variance : 0;
+        return Math.abs(slope * window) <= tol;
+    }
+}
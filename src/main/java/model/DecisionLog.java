@@ -0,0 +1,107 @@
+package model;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Append-only binary log of all decisions of a simulation run.
+ * Together with the seed in the header, the log is enough to replay the run without solving any revenue density system.
+ * 
+ * Header: magic, version, configuration (miners, pools, solo miners, seed, native solver, miner distribution, decision batch, common random numbers,
+ * local search radius and restarts),
+ * initial revenue density of every pool.
+ * Records, each starting with its type byte and the time step:
+ * -RATES: pool id, chosen revenue density, infiltration rate to every pool.
+ * -MOVE: miner id, joined pool id (-1 for solo mining).
+ * -EMPTIED: pool id of a pool that lost all its loyal miners.
+ */
+public class DecisionLog implements Closeable {
+
+    static final int MAGIC = 0x504d444c;
+    static final int VERSION = 5;
+
+    static final byte RATES = 1;
+    static final byte MOVE = 2;
+    static final byte EMPTIED = 3;
+
+    private final DataOutputStream out;
+
+    public DecisionLog(File file) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    }
+
+    void writeHeader(Simulation sim){
+        try {
+            SimulationConfig config = sim.getConfig();
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(config.getAmountMiners());
+            out.writeInt(config.getAmountPools());
+            out.writeInt(config.getAmountSoloMiners());
+            out.writeLong(config.getSeed());
+            out.writeBoolean(config.isUseNativeSolver());
+            out.writeUTF(config.getMinerDistribution().toString());
+            out.writeInt(config.getDecisionBatch());
+            out.writeBoolean(config.isCommonRandomNumbers());
+            out.writeInt(config.getLocalSearchRadius());
+            out.writeInt(config.getLocalSearchRestarts());
+            for(Pool p: sim.getPools()){
+                out.writeDouble(p.getRevenueDensity());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void logRates(int time, int poolId, double density, int[] rates){
+        try {
+            out.writeByte(RATES);
+            out.writeInt(time);
+            out.writeInt(poolId);
+            out.writeDouble(density);
+            for(int rate: rates){
+                out.writeInt(rate);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void logMove(int time, int minerId, int poolId){
+        try {
+            out.writeByte(MOVE);
+            out.writeInt(time);
+            out.writeInt(minerId);
+            out.writeInt(poolId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void logEmptied(int time, int poolId){
+        try {
+            out.writeByte(EMPTIED);
+            out.writeInt(time);
+            out.writeInt(poolId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write everything logged so far to the file.
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
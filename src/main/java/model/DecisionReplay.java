@@ -0,0 +1,199 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Replays a simulation run from its decision log.
+ * Mining and revenue sharing are repeated with the logged seed, but infiltration rates and pool moves
+ * are taken from the log, so no revenue density system is solved.
+ */
+public class DecisionReplay implements Closeable {
+
+    private final DataInputStream in;
+    private final SimulationConfig config;
+    private final double[] initialDensities;
+    private final Simulation sim;
+    /**
+     * Next record that has not been applied yet, type is -1 at the end of the log.
+     */
+    private byte nextType;
+    private int nextTime;
+    private int nextId;
+    private int nextPoolId;
+    private double nextDensity;
+    private int[] nextRates;
+    /**
+     * Revenue density that belongs to the last rates handed out.
+     */
+    private double lastDensity;
+
+    public DecisionReplay(File file) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        if(in.readInt() != DecisionLog.MAGIC){
+            throw new IOException("Not a decision log: " + file);
+        }
+        int version = in.readInt();
+        if(version != DecisionLog.VERSION){
+            throw new IOException("Unsupported decision log version " + version);
+        }
+
+        config = new SimulationConfig(in.readInt(), in.readInt(), in.readInt(), in.readLong());
+        config.setUseNativeSolver(in.readBoolean());
+        config.setMinerDistribution(MinerDistribution.parse(in.readUTF()));
+        config.setDecisionBatch(in.readInt());
+        config.setCommonRandomNumbers(in.readBoolean());
+        config.setLocalSearchRadius(in.readInt());
+        config.setLocalSearchRestarts(in.readInt());
+        initialDensities = new double[config.getAmountPools()];
+        for(int i = 0; i < initialDensities.length; i++){
+            initialDensities[i] = in.readDouble();
+        }
+        nextRates = new int[config.getAmountPools()];
+        readNext();
+
+        sim = new Simulation(config, this);
+    }
+
+    /**
+     * @return simulation that is driven by this log.
+     */
+    public Simulation getSimulation() {
+        return sim;
+    }
+
+    public SimulationConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Replay one time step.
+     * 
+     * @return false if the log has no more decisions.
+     */
+    public boolean step(){
+        if(nextType < 0){
+            return false;
+        }
+        sim.timeStep();
+        return true;
+    }
+
+    /**
+     * Replay until the given time step or the end of the log.
+     * 
+     * @param time time step to stop at.
+     */
+    public void replayUntil(int time){
+        while(sim.getTime() < time){
+            if(!step()){
+                break;
+            }
+        }
+    }
+
+    double getInitialDensity(int poolId){
+        return initialDensities[poolId];
+    }
+
+    double getLastDensity(){
+        return lastDensity;
+    }
+
+    /**
+     * Apply the logged move of the miner whose turn it is, if it moved.
+     * Moves of a decision batch are logged in the order of their miners, so a move of a later miner
+     * only means that this one did not move.
+     * 
+     * @param sim simulation being replayed.
+     * @param m miner whose turn it is.
+     */
+    void applyMove(Simulation sim, Miner m){
+        skipEmptied(sim.getTime());
+        if(nextType != DecisionLog.MOVE || nextTime != sim.getTime()){
+            return;
+        }
+        if(nextId != m.getId()){
+            if(config.getDecisionBatch() != 1){
+                return;
+            }
+            throw new IllegalStateException("Log expects miner " + nextId + " to move at step " + nextTime + " but it is the turn of " + m.getId());
+        }
+        int poolId = nextPoolId;
+        readNext();
+
+        if(poolId < 0){
+            m.mineSolo();
+        } else {
+            m.joinPool(sim.getPools().get(poolId));
+        }
+    }
+
+    /**
+     * @param time current time step.
+     * @param poolId pool that changes its rates.
+     * @return infiltration rates the pool has chosen at this step.
+     */
+    int[] nextRates(int time, int poolId){
+        skipEmptied(time);
+        if(nextType != DecisionLog.RATES || nextTime != time || nextId != poolId){
+            throw new IllegalStateException("Log has no rates of pool " + poolId + " at step " + time);
+        }
+        int[] rates = nextRates.clone();
+        lastDensity = nextDensity;
+        readNext();
+        return rates;
+    }
+
+    /**
+     * Emptied pools are only logged for inspection, the simulation empties them by itself.
+     */
+    private void skipEmptied(int time){
+        while(nextType == DecisionLog.EMPTIED && nextTime <= time){
+            readNext();
+        }
+    }
+
+    private void readNext(){
+        try {
+            try {
+                nextType = in.readByte();
+            } catch (EOFException e) {
+                nextType = -1;
+                return;
+            }
+            nextTime = in.readInt();
+            switch (nextType) {
+                case DecisionLog.RATES:
+                    nextId = in.readInt();
+                    nextDensity = in.readDouble();
+                    for(int i = 0; i < nextRates.length; i++){
+                        nextRates[i] = in.readInt();
+                    }
+                    break;
+                case DecisionLog.MOVE:
+                    nextId = in.readInt();
+                    nextPoolId = in.readInt();
+                    break;
+                case DecisionLog.EMPTIED:
+                    nextId = in.readInt();
+                    break;
+                default:
+                    throw new IOException("Unknown record type " + nextType);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
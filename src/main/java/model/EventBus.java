@@ -0,0 +1,215 @@
+package model;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delivers typed simulation events to subscribers on their own executors.
+ * 
+ * Publishing never takes a lock: the event is put into a queue of every subscriber of its type,
+ * and the subscriber's executor is asked to drain the queue if it is not already doing so.
+ * What happens when a subscriber falls behind is chosen per subscriber, see Backpressure.
+ * If the executor of a subscriber rejects the drain task (for example after shutdown), the waiting events
+ * of that subscriber are counted as dropped and the next event tries again.
+ */
+public class EventBus {
+
+    /**
+     * Behaviour when the queue of a subscriber is full:
+     * -DROP: discard the new event.
+     * -COALESCE: keep only the latest event, the queue holds at most one event.
+     * -BLOCK: the publishing (simulation) thread waits until there is space.
+     */
+    public enum Backpressure { DROP, COALESCE, BLOCK }
+
+    private final CopyOnWriteArrayList<Subscription<?>> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Subscribe to events of a type.
+     * 
+     * @param type class of the events, subclasses are not delivered.
+     * @param listener receiver of the events.
+     * @param executor executor that calls the listener, events are delivered one at a time in order of publication.
+     * @param backpressure behaviour when the listener falls behind.
+     * @param capacity amount of events that can wait for the listener (ignored for COALESCE).
+     * @return subscription that can be cancelled.
+     */
+    public <E extends SimulationEvent> Subscription<E> subscribe(Class<E> type, SimulationListener<? super E> listener,
+            Executor executor, Backpressure backpressure, int capacity){
+        Subscription<E> s = new Subscription<>(type, listener, executor, backpressure, Math.max(1, capacity));
+        subscriptions.add(s);
+        return s;
+    }
+
+    /**
+     * @return whether anyone is subscribed to the type, so events that nobody receives need not be created.
+     */
+    public boolean hasSubscribers(Class<? extends SimulationEvent> type){
+        for(Subscription<?> s: subscriptions){
+            if(s.type == type){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Hand an event to all subscribers of its type.
+     */
+    public void publish(SimulationEvent event){
+        for(Subscription<?> s: subscriptions){
+            if(s.type == event.getClass()){
+                s.offer(event);
+            }
+        }
+    }
+
+    /**
+     * Subscription of one listener.
+     */
+    public final class Subscription<E extends SimulationEvent> {
+
+        private final Class<E> type;
+        private final SimulationListener<? super E> listener;
+        private final Executor executor;
+        private final Backpressure backpressure;
+        private final int capacity;
+
+        /**
+         * Waiting events, or only the latest one for COALESCE.
+         */
+        private final ConcurrentLinkedQueue<E> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicReference<E> latest = new AtomicReference<>();
+        /**
+         * Whether a drain task is submitted to the executor and has not finished yet.
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean cancelled = false;
+
+        private final Runnable drain = new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        };
+
+        private Subscription(Class<E> type, SimulationListener<? super E> listener, Executor executor, Backpressure backpressure, int capacity){
+            this.type = type;
+            this.listener = listener;
+            this.executor = executor;
+            this.backpressure = backpressure;
+            this.capacity = capacity;
+        }
+
+        private void offer(SimulationEvent event){
+            E e = type.cast(event);
+            switch (backpressure) {
+                case COALESCE:
+                    if(latest.getAndSet(e) != null){
+                        dropped.incrementAndGet();
+                    }
+                    break;
+                case DROP:
+                    if(size.incrementAndGet() > capacity){
+                        size.decrementAndGet();
+                        dropped.incrementAndGet();
+                        return;
+                    }
+                    queue.offer(e);
+                    break;
+                case BLOCK:
+                    while(size.get() >= capacity && !cancelled){
+                        if(!schedule()){
+                            break;
+                        }
+                        LockSupport.parkNanos(100000);
+                    }
+                    size.incrementAndGet();
+                    queue.offer(e);
+                    break;
+            }
+            schedule();
+        }
+
+        /**
+         * Make sure a drain task is submitted.
+         * 
+         * @return false if the executor rejected the task, the waiting events are then discarded.
+         */
+        private boolean schedule(){
+            if(!cancelled && scheduled.compareAndSet(false, true)){
+                try {
+                    executor.execute(drain);
+                } catch (RejectedExecutionException ex) {
+                    scheduled.set(false);
+                    while(poll() != null){
+                        dropped.incrementAndGet();
+                    }
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private E poll(){
+            if(backpressure == Backpressure.COALESCE){
+                return latest.getAndSet(null);
+            }
+            E e = queue.poll();
+            if(e != null){
+                size.decrementAndGet();
+            }
+            return e;
+        }
+
+        private boolean isEmpty(){
+            return backpressure == Backpressure.COALESCE ? latest.get() == null : queue.isEmpty();
+        }
+
+        /**
+         * Deliver waiting events. Runs on the executor of the subscriber.
+         */
+        private void drain(){
+            while(true){
+                E e;
+                while(!cancelled && (e = poll()) != null){
+                    try {
+                        listener.onEvent(e);
+                    } catch (RuntimeException ex) {
+                        ex.printStackTrace(System.err);
+                    }
+                }
+                scheduled.set(false);
+
+                // An event may have been added after the last poll but before scheduled was cleared.
+                if(cancelled || isEmpty() || !scheduled.compareAndSet(false, true)){
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Stop delivering events, waiting events are discarded.
+         */
+        public void cancel(){
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        /**
+         * @return amount of events that were discarded or replaced by a newer one.
+         */
+        public long getDropped() {
+            return dropped.get();
+        }
+    }
+}
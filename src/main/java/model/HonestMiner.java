@@ -1,7 +1,5 @@
 package model;
 
-import java.util.ArrayList;
-
 import javafx.util.Pair;
 
 /**
@@ -13,10 +11,6 @@ public class HonestMiner extends Miner{
      * Id of the pool where mining happens. 
      */
     private int poolId;
-    /**
-     * Own revenue in this pool.
-     */
-    private double revenue = 0;
 
     public HonestMiner(Simulation sim, int id, int pool){
         super(sim, id);
@@ -40,58 +34,61 @@ public class HonestMiner extends Miner{
 
     /**
      * Joins other pool if it is more profitable OR decides to mine solo.
-     * 
-     * @param placeRoundRobin place in the array of miners (in the simulation).
      */
-    public void changePool(int placeRoundRobin){
-        Pool candidatePool = null;
+    int choosePool(){
         double bestDen = getOwnRevDen();
 
-        // Loop through all pools and try to find own with higher revenue density.
-        for(Pool p: getSim().getPools()){
-            if((p.getRevenueDensity()*(1 - p.getContributionFees())) > bestDen || Double.isNaN(bestDen)){
-                bestDen = p.getRevenueDensity()*(1 - p.getContributionFees());
-                candidatePool = p;
+        // Find the pool with the highest revenue density and check whether it is higher than own.
+        Pool best = getSim().getBestPool();
+        if(best != null){
+            double den = getSim().getEffectiveDensity(best.getId());
+            // Without an own density any pool is better, the last one if no pool has a density either.
+            if(den > bestDen || Double.isNaN(bestDen)){
+                return Double.isNaN(den) ? getSim().getPools().size() - 1 : best.getId();
             }
         }
 
-        // If such pool exists, become honest miner in that pool.
-        if(candidatePool != null){
-            Pool ownPool = getSim().getPools().get(poolId);
-            ArrayList<Miner> newMembers = candidatePool.getMembers();
-
-            newMembers.add(this);
-            candidatePool.setMembers(newMembers);
-
-            newMembers = ownPool.getMembers();
-            this.poolId = candidatePool.getId();
-            newMembers.remove(this);
-            ownPool.setMembers(newMembers);
-        } 
         // Becomes solo miner if it is more profitable.
-        else if(bestDen < 1/getSim().getMiningPower()){
-            getSim().getPools().get(poolId).getMembers().remove(this);
-            getSim().getMiners().remove(this);
-            SoloMiner sm = new SoloMiner(getSim(), getId());
-            getSim().getMiners().add(placeRoundRobin, sm);
+        if(bestDen < 1/getSim().getMiningPower()){
+            return SOLO;
         }
+        return STAY;
     }
 
     /**
-     * Calculate own current revenue density.
+     * Become honest miner in the given pool.
+     * 
+     * @param candidatePool pool to join.
      */
-    public void calculateOwnRevDen(){
-		this.setOwnRevDen(getSim().getPools().get(poolId).getRevenueDensity() * (1 - getSim().getPools().get(poolId).getContributionFees())); 
-	}
-
-    public double getRevenue() {
-        return revenue;
+    void joinPool(Pool candidatePool){
+        Pool ownPool = getSim().getPools().get(poolId);
+
+        // Leave first, a miner can only be a member of one pool at a time.
+        ownPool.removeMember(this);
+        getSim().getStateHash().toggleMiner(this);
+        this.poolId = candidatePool.getId();
+        getSim().getStateHash().toggleMiner(this);
+        candidatePool.addMember(this);
+        getSim().recordMove(getId(), candidatePool.getId());
     }
 
-    public void setRevenue(double revenue) {
-        this.revenue = revenue;
+    /**
+     * Leave own pool and become solo miner.
+     */
+    void mineSolo(){
+        getSim().getPools().get(poolId).removeMember(this);
+        SoloMiner sm = new SoloMiner(getSim(), getId());
+        getSim().replaceMiner(this, sm);
+        getSim().recordMove(getId(), -1);
     }
 
+    /**
+     * Calculate own current revenue density.
+     */
+    public void calculateOwnRevDen(){
+		this.setOwnRevDen(getSim().getEffectiveDensity(poolId));
+	}
+
     public int getPoolId(){
         return this.poolId;
     }
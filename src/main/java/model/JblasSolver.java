@@ -0,0 +1,42 @@
+package model;
+
+import org.jblas.DoubleMatrix;
+import org.jblas.Solve;
+
+/**
+ * Solver backed by jblas (native LAPACK).
+ * Only pays off for large systems, since every call crosses JNI and copies the matrices.
+ * jblas extracts its native libraries when this class is first used, so it is only loaded on demand.
+ */
+public class JblasSolver implements LinearSolver {
+
+    private final DoubleMatrix coefs;
+    private final DoubleMatrix constants;
+
+    public JblasSolver(int n){
+        this.coefs = new DoubleMatrix(n, n);
+        this.constants = new DoubleMatrix(n, 1);
+    }
+
+    public void clear(){
+        coefs.fill(0.0);
+        constants.fill(0.0);
+    }
+
+    public void setCoefficient(int row, int col, double value){
+        coefs.put(row, col, value);
+    }
+
+    public void setConstant(int row, double value){
+        constants.put(row, 0, value);
+    }
+
+    public double solveFor(int index){
+        DoubleMatrix res = Solve.solve(coefs, constants);
+        return res.get(index);
+    }
+
+    public double[] solveAll(){
+        return Solve.solve(coefs, constants).toArray();
+    }
+}
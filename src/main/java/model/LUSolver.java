@@ -0,0 +1,127 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Pure Java LU solver with partial pivoting.
+ * All workspaces are allocated once, so solving does not allocate and does not cross JNI.
+ * Intended for the small systems (one row per pool) solved in the best response search.
+ */
+public class LUSolver implements LinearSolver {
+
+    /**
+     * Size of the system.
+     */
+    private final int n;
+    /**
+     * Coefficient matrix in row-major order, decomposed in place while solving.
+     */
+    private final double[] a;
+    /**
+     * Constants, overwritten by the solution while solving.
+     */
+    private final double[] b;
+
+    public LUSolver(int n){
+        this.n = n;
+        this.a = new double[n * n];
+        this.b = new double[n];
+    }
+
+    public void clear(){
+        Arrays.fill(a, 0.0);
+        Arrays.fill(b, 0.0);
+    }
+
+    public void setCoefficient(int row, int col, double value){
+        a[row * n + col] = value;
+    }
+
+    public void setConstant(int row, double value){
+        b[row] = value;
+    }
+
+    /**
+     * Decompose the matrix, then substitute backwards until the requested unknown is found.
+     */
+    public double solveFor(int index){
+        if(!decompose()){
+            return Double.NaN;
+        }
+        substitute(index);
+        return b[index];
+    }
+
+    public double[] solveAll(){
+        double[] x = new double[n];
+        if(!decompose()){
+            Arrays.fill(x, Double.NaN);
+            return x;
+        }
+        substitute(0);
+        System.arraycopy(b, 0, x, 0, n);
+        return x;
+    }
+
+    /**
+     * Decompose the matrix with partial pivoting, applying the same row operations to the constants.
+     * 
+     * @return false if the matrix is singular.
+     */
+    private boolean decompose(){
+        for(int k = 0; k < n; k++){
+            // Choose the row with the largest pivot.
+            int pivot = k;
+            double max = Math.abs(a[k * n + k]);
+            for(int i = k + 1; i < n; i++){
+                double v = Math.abs(a[i * n + k]);
+                if(v > max){
+                    max = v;
+                    pivot = i;
+                }
+            }
+
+            if(max == 0.0){
+                return false;
+            }
+
+            if(pivot != k){
+                for(int j = 0; j < n; j++){
+                    double tmp = a[k * n + j];
+                    a[k * n + j] = a[pivot * n + j];
+                    a[pivot * n + j] = tmp;
+                }
+                double tmp = b[k];
+                b[k] = b[pivot];
+                b[pivot] = tmp;
+            }
+
+            double diag = a[k * n + k];
+            for(int i = k + 1; i < n; i++){
+                double factor = a[i * n + k] / diag;
+                if(factor != 0.0){
+                    a[i * n + k] = factor;
+                    for(int j = k + 1; j < n; j++){
+                        a[i * n + j] -= factor * a[k * n + j];
+                    }
+                    b[i] -= factor * b[k];
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Substitute backwards down to the given unknown, the solution overwrites the constants.
+     * Unknowns after the requested one are not needed for it, but have to be computed first.
+     */
+    private void substitute(int index){
+        for(int i = n - 1; i >= index; i--){
+            double sum = b[i];
+            for(int j = i + 1; j < n; j++){
+                sum -= a[i * n + j] * b[j];
+            }
+            b[i] = sum / a[i * n + i];
+        }
+    }
+}
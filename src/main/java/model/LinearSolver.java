@@ -0,0 +1,42 @@
+package model;
+
+/**
+ * Solver for the square systems of linear equations that describe revenue densities of all pools.
+ * Coefficients and constants are written into a workspace owned by the solver, 
+ * so that the same solver can be reused for every candidate infiltration vector.
+ */
+public interface LinearSolver {
+
+    /**
+     * Reset all coefficients and constants to zero.
+     */
+    void clear();
+
+    /**
+     * @param row row of the system.
+     * @param col column of the system.
+     * @param value coefficient at the given position.
+     */
+    void setCoefficient(int row, int col, double value);
+
+    /**
+     * @param row row of the system.
+     * @param value constant on the right hand side of the given row.
+     */
+    void setConstant(int row, double value);
+
+    /**
+     * Solve the current system.
+     * 
+     * @param index which unknown is of interest.
+     * @return value of the unknown with the given index, NaN if the system is singular.
+     */
+    double solveFor(int index);
+
+    /**
+     * Solve the current system for all unknowns.
+     * 
+     * @return values of all unknowns, NaN if the system is singular.
+     */
+    double[] solveAll();
+}
@@ -0,0 +1,193 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * Approximate best response of a pool: hill climbing over infiltration rates close to the current ones.
+ * 
+ * Only rates within an L1 radius around the start are considered. From a point the search moves to the best
+ * neighbour (one more or one less sabotager in one pool, or one sabotager moved from one pool to another)
+ * until no neighbour is better. This is repeated from random points within the radius.
+ */
+class LocalBestResponse {
+
+    private final Pool pool;
+    private final int radius;
+    private final int restarts;
+    private Random rand;
+
+    /**
+     * Center of the search, maximum amount of sabotagers and the number of revenue densities calculated.
+     */
+    private int[] center;
+    private int top;
+    private int evaluations;
+
+    private int[] bestRate;
+    private double bestDensity;
+
+    LocalBestResponse(Pool pool, int radius, int restarts){
+        this.pool = pool;
+        this.radius = radius;
+        this.restarts = restarts;
+    }
+
+    /**
+     * Search the best infiltration rates around the given ones.
+     * 
+     * @param start current infiltration rates, the first point of the search.
+     * @param best rates to keep if nothing better is found.
+     * @param density revenue density of these rates.
+     * @param top maximum amount of sabotagers.
+     * @param rand generator for the starting points of the restarts.
+     * @return best infiltration rates found.
+     */
+    int[] search(int[] start, int[] best, double density, int top, Random rand){
+        this.top = top;
+        this.rand = rand;
+        this.evaluations = 0;
+        this.bestRate = best;
+        this.bestDensity = density;
+
+        // The current rates may exceed the amount of loyal miners if the pool has shrunk.
+        this.center = start.clone();
+        int sum = sum(center);
+        while(sum > top){
+            center[argMax(center)]--;
+            sum--;
+        }
+
+        climb(center.clone());
+        for(int r = 0; r < restarts; r++){
+            climb(randomPoint());
+        }
+        return bestRate;
+    }
+
+    /**
+     * Hill climbing from a point within the radius.
+     */
+    private void climb(int[] x){
+        double value = evaluate(x);
+        int n = x.length;
+        int own = pool.getId();
+
+        while(true){
+            int bestFrom = -1;
+            int bestTo = -1;
+            double bestValue = value;
+
+            // Move one sabotager from pool "from" to pool "to", -1 is the own pool.
+            for(int from = -1; from < n; from++){
+                if(from == own || (from >= 0 && x[from] == 0)){
+                    continue;
+                }
+                for(int to = -1; to < n; to++){
+                    if(to == own || to == from){
+                        continue;
+                    }
+                    move(x, from, to);
+                    if(feasible(x)){
+                        double res = evaluate(x);
+                        if(res > bestValue){
+                            bestValue = res;
+                            bestFrom = from;
+                            bestTo = to;
+                        }
+                    }
+                    move(x, to, from);
+                }
+            }
+
+            if(bestFrom == -1 && bestTo == -1){
+                return;
+            }
+            move(x, bestFrom, bestTo);
+            value = bestValue;
+        }
+    }
+
+    private static void move(int[] x, int from, int to){
+        if(from >= 0){
+            x[from]--;
+        }
+        if(to >= 0){
+            x[to]++;
+        }
+    }
+
+    /**
+     * @return point reached by a random walk of at most radius steps from the center.
+     */
+    private int[] randomPoint(){
+        int[] x = center.clone();
+        int steps = rand.nextInt(radius + 1);
+        for(int i = 0; i < steps; i++){
+            int j = rand.nextInt(x.length);
+            if(j == pool.getId()){
+                continue;
+            }
+            int delta = rand.nextBoolean() ? 1 : -1;
+            x[j] += delta;
+            if(!feasible(x)){
+                x[j] -= delta;
+            }
+        }
+        return x;
+    }
+
+    private boolean feasible(int[] x){
+        int sum = 0;
+        int distance = 0;
+        for(int i = 0; i < x.length; i++){
+            if(x[i] < 0){
+                return false;
+            }
+            sum += x[i];
+            distance += Math.abs(x[i] - center[i]);
+        }
+        return sum <= top && distance <= radius;
+    }
+
+    private double evaluate(int[] x){
+        evaluations++;
+        double res = pool.calculateExpectedRevenueDensityGeneral(x);
+        if(res > bestDensity){
+            bestDensity = res;
+            bestRate = x.clone();
+        }
+        return res;
+    }
+
+    private static int sum(int[] x){
+        int sum = 0;
+        for(int v: x){
+            sum += v;
+        }
+        return sum;
+    }
+
+    private static int argMax(int[] x){
+        int best = 0;
+        for(int i = 1; i < x.length; i++){
+            if(x[i] > x[best]){
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return revenue density of the best rates found by the last search.
+     */
+    double getBestDensity() {
+        return bestDensity;
+    }
+
+    /**
+     * @return amount of revenue densities calculated by the last search.
+     */
+    int getEvaluations() {
+        return evaluations;
+    }
+}
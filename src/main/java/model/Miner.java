@@ -1,5 +1,7 @@
 package model;
 
+import java.util.Random;
+
 import javafx.util.Pair;
 
 /**
@@ -41,33 +43,75 @@ public abstract class Miner {
      */
 	private final double miningPower = 1;
 	private final double probabiltyMineBlock = 0.25;
+	/**
+	 * Own position in every kind of miner set (see MinerSet), -1 if not in such a set.
+	 */
+	private final int[] setPositions = {-1, -1, -1};
+	/**
+	 * Choices of choosePool besides pool ids.
+	 */
+	static final int SOLO = -1;
+	static final int STAY = -2;
 	
 	public Miner (Simulation sim, int id) {
 		this.sim = sim;
 		this.id = id;
-		this.pPoW = Math.random() * 10;
+		this.pPoW = sim.getRandom(id, MinerRandom.INITIAL_POW).nextDouble() * 10;
 		this.fPoW = 0.0;
 	}
 
 	abstract void work();
 	abstract Pair<Double, Double> publish();
 	abstract void calculateOwnRevDen();
-	abstract void changePool(int placeRoundRobin);
+	/**
+	 * Choose whether to join another pool or mine solo, without changing anything.
+	 * 
+	 * @return id of the pool to join, SOLO to mine solo or STAY to keep the current role.
+	 */
+	abstract int choosePool();
+	/**
+	 * Apply a decision of changePool: join the given pool as honest miner, or mine solo.
+	 */
+	abstract void joinPool(Pool candidatePool);
+	abstract void mineSolo();
+
+	/**
+	 * Joins other pool if it is more profitable OR decides to mine solo.
+	 * 
+	 * @param placeRoundRobin place in the array of miners (in the simulation).
+	 */
+	public void changePool(int placeRoundRobin){
+		applyChoice(choosePool());
+	}
+
+	/**
+	 * Apply a choice of choosePool.
+	 * 
+	 * @param choice id of the pool to join, SOLO or STAY.
+	 */
+	void applyChoice(int choice){
+		if(choice >= 0){
+			joinPool(sim.getPools().get(choice));
+		} else if(choice == SOLO){
+			mineSolo();
+		}
+	}
 
 	/**
 	 * Function that sets poisson distribution for the game.
 	 * source: https://stackoverflow.com/questions/1241555/algorithm-to-generate-poisson-and-binomial-random-numbers
 	 * 
 	 * @param lambda = amount of trails * probability of event A
+	 * @param rand random generator to draw from.
 	 * @return a number randomly drawn from a generated distribution.
 	 */
-	public static int poissonDistribution(double lambda) {
+	public static int poissonDistribution(double lambda, Random rand) {
 		double L = Math.exp(-lambda);
 		double p = 1.0;
 		int k = 0;
 		do {
 			k++;
-			p *= Math.random();
+			p *= rand.nextDouble();
 		} while (p > L);
 		return k - 1;
 	}
@@ -86,8 +130,9 @@ public abstract class Miner {
 	 * Proof of work is relted to the task difficulty.
 	 */
 	public void generatePoW(){
-		this.fPoW = poissonDistribution(probabiltyMineBlock * this.task.getTime());
-		this.pPoW = poissonDistribution(miningPower * this.task.getTime());
+		Random r = sim.getRandom(id, MinerRandom.POW);
+		this.fPoW = poissonDistribution(probabiltyMineBlock * this.task.getTime(), r);
+		this.pPoW = poissonDistribution(miningPower * this.task.getTime(), r);
 	}
 
 	public double getRevenueInOwnPool() {
@@ -148,4 +193,12 @@ public abstract class Miner {
 	public Simulation getSim() {
 		return sim;
 	}
+
+	int getSetPosition(int kind) {
+		return setPositions[kind];
+	}
+
+	void setSetPosition(int kind, int position) {
+		setPositions[kind] = position;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * Decides in which pool every pool miner starts.
+ * A distribution is described by a short text, which toString returns and parse reads:
+ * -round-robin: miner i starts in pool i mod amount of pools.
+ * -random: every miner starts in a uniformly drawn pool.
+ * -sizes:a,b,...: the first a miners start in pool 0, the next b in pool 1 and so on.
+ * -bounds:a,b,...: miners below a start in pool 0, miners from a below b in pool 1, all others in the last pool.
+ */
+public interface MinerDistribution {
+
+    /**
+     * @param amountMiners amount of pool miners.
+     * @param amountPools amount of pools.
+     * @param rand random generator of the simulation.
+     * @return pool of every miner, indexed by miner id.
+     */
+    int[] assign(int amountMiners, int amountPools, Random rand);
+
+    /**
+     * @param spec description of a distribution, see above.
+     * @return distribution with the given description.
+     */
+    static MinerDistribution parse(String spec){
+        String name = spec.trim();
+        String values = "";
+        int colon = name.indexOf(':');
+        if(colon >= 0){
+            values = name.substring(colon + 1);
+            name = name.substring(0, colon);
+        }
+
+        switch (name) {
+            case RoundRobinDistribution.NAME:
+                return new RoundRobinDistribution();
+            case RandomDistribution.NAME:
+                return new RandomDistribution();
+            case BoundDistribution.SIZES:
+                return BoundDistribution.ofSizes(parseInts(values));
+            case BoundDistribution.BOUNDS:
+                return new BoundDistribution(parseInts(values));
+            default:
+                throw new IllegalArgumentException("Unknown miner distribution " + spec);
+        }
+    }
+
+    static int[] parseInts(String values){
+        String[] parts = values.split(",");
+        int[] ints = new int[parts.length];
+        for(int i = 0; i < parts.length; i++){
+            ints[i] = Integer.parseInt(parts[i].trim());
+        }
+        return ints;
+    }
+}
@@ -0,0 +1,51 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * Random stream of one miner (or pool) for one purpose at one time step, used for common random numbers
+ * and for draws that must not shift the shared stream.
+ * The stream only depends on the seed, miner id, step and purpose, so runs with different parameters
+ * give the same draws to the same miner at the same step.
+ * One instance is reset for every draw instead of creating a generator per miner.
+ */
+class MinerRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Purposes of draws: partial proof of work of a new miner, proofs of work of a new task, inertia of a decision,
+     * restarts of the local search of a pool.
+     */
+    static final int INITIAL_POW = 0;
+    static final int POW = 1;
+    static final int INERTIA = 2;
+    static final int LOCAL_SEARCH = 3;
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * State of the SplitMix64 generator.
+     */
+    private long state;
+
+    MinerRandom(){
+        super(0);
+    }
+
+    /**
+     * Start the stream of a miner or pool.
+     * 
+     * @return this generator.
+     */
+    MinerRandom reset(long seed, int minerId, int step, int purpose){
+        state = StateHash.mix(StateHash.mix(StateHash.mix(seed + purpose * GOLDEN_GAMMA) + minerId) + step);
+        return this;
+    }
+
+    @Override
+    protected int next(int bits){
+        state += GOLDEN_GAMMA;
+        return (int) (StateHash.mix(state) >>> (64 - bits));
+    }
+}
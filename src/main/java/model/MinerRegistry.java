@@ -0,0 +1,125 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * All miners of a simulation, each in a fixed slot.
+ * Maps miner ids to slots, so that looking up, replacing and removing a miner takes constant time.
+ * The order of slots is the round robin order in which miners may change pools.
+ * Roles are Miner subclasses, so a role change puts a new object with the same id into the slot:
+ * references to a miner must not be kept across decisions, look the miner up by id instead.
+ */
+public class MinerRegistry extends AbstractList<Miner> {
+
+    private Miner[] slots;
+    /**
+     * Slot of every miner id, -1 if the id is not registered.
+     */
+    private int[] slotOfId;
+    private int size;
+
+    public MinerRegistry(int capacity){
+        this.slots = new Miner[Math.max(capacity, 1)];
+        this.slotOfId = new int[Math.max(capacity, 1)];
+        Arrays.fill(slotOfId, -1);
+        this.size = 0;
+    }
+
+    @Override
+    public Miner get(int slot){
+        if(slot >= size){
+            throw new IndexOutOfBoundsException("Slot " + slot + " of " + size);
+        }
+        return slots[slot];
+    }
+
+    @Override
+    public int size(){
+        return size;
+    }
+
+    /**
+     * @param id id of a miner.
+     * @return miner with the given id, null if there is none.
+     */
+    public Miner getById(int id){
+        if(id < 0 || id >= slotOfId.length || slotOfId[id] < 0){
+            return null;
+        }
+        return slots[slotOfId[id]];
+    }
+
+    /**
+     * @param id id of a miner.
+     * @return slot of the miner with the given id, -1 if there is none.
+     */
+    public int slotOf(int id){
+        if(id < 0 || id >= slotOfId.length){
+            return -1;
+        }
+        return slotOfId[id];
+    }
+
+    /**
+     * Register miner in a new slot at the end.
+     */
+    @Override
+    public boolean add(Miner m){
+        if(size == slots.length){
+            slots = Arrays.copyOf(slots, size * 2);
+        }
+        if(m.getId() >= slotOfId.length){
+            int oldLength = slotOfId.length;
+            slotOfId = Arrays.copyOf(slotOfId, Math.max(m.getId() + 1, oldLength * 2));
+            Arrays.fill(slotOfId, oldLength, slotOfId.length, -1);
+        }
+        slots[size] = m;
+        slotOfId[m.getId()] = size;
+        size++;
+        return true;
+    }
+
+    /**
+     * Put miner with a new role into the slot of the miner with the same id.
+     * 
+     * @param old registered miner.
+     * @param replacement miner with the same id.
+     * @return whether the old miner was registered.
+     */
+    public boolean replace(Miner old, Miner replacement){
+        int slot = slotOf(old.getId());
+        if(slot < 0 || slots[slot] != old){
+            return false;
+        }
+        slots[slot] = replacement;
+        return true;
+    }
+
+    /**
+     * Remove miner, the miner from the last slot takes its place.
+     */
+    @Override
+    public boolean remove(Object o){
+        if(!(o instanceof Miner)){
+            return false;
+        }
+        Miner m = (Miner) o;
+        int slot = slotOf(m.getId());
+        if(slot < 0 || slots[slot] != m){
+            return false;
+        }
+        Miner last = slots[size - 1];
+        slots[slot] = last;
+        slotOfId[last.getId()] = slot;
+        slots[size - 1] = null;
+        slotOfId[m.getId()] = -1;
+        size--;
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o){
+        return o instanceof Miner && getById(((Miner) o).getId()) == o;
+    }
+}
@@ -0,0 +1,89 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+
+/**
+ * Dense set of miners with constant time add, remove and contains.
+ * Every miner remembers its own position in the set, removal moves the last miner into the freed place.
+ * Therefore the order of miners is not stable.
+ * 
+ * A miner can be in one set of each kind at the same time, e.g. members of a pool and sabotagers of a pool.
+ */
+public class MinerSet<T extends Miner> extends AbstractList<T> {
+
+    /**
+     * Kinds of sets, each kind uses its own position field of a miner.
+     * -all miners that mine in a pool.
+     * -miners with the same role in a pool (honest members, or sabotagers of the same attacked pool).
+     * -sabotagers sent out by a pool.
+     */
+    public static final int MEMBERSHIP = 0;
+    public static final int ROLE = 1;
+    public static final int SABOTAGE = 2;
+    static final int KINDS = 3;
+
+    private final int kind;
+    private final ArrayList<T> elements;
+
+    public MinerSet(int kind){
+        this.kind = kind;
+        this.elements = new ArrayList<>();
+    }
+
+    @Override
+    public T get(int index){
+        return elements.get(index);
+    }
+
+    @Override
+    public int size(){
+        return elements.size();
+    }
+
+    @Override
+    public boolean add(T m){
+        m.setSetPosition(kind, elements.size());
+        elements.add(m);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o){
+        if(!(o instanceof Miner)){
+            return false;
+        }
+        int pos = ((Miner) o).getSetPosition(kind);
+        return pos >= 0 && pos < elements.size() && elements.get(pos) == o;
+    }
+
+    @Override
+    public boolean remove(Object o){
+        if(!contains(o)){
+            return false;
+        }
+        int pos = ((Miner) o).getSetPosition(kind);
+        T last = elements.remove(elements.size() - 1);
+        if(last != o){
+            elements.set(pos, last);
+            last.setSetPosition(kind, pos);
+        }
+        ((Miner) o).setSetPosition(kind, -1);
+        return true;
+    }
+
+    /**
+     * @return the miner that can be removed most cheaply, null if the set is empty.
+     */
+    public T peekLast(){
+        return elements.isEmpty() ? null : elements.get(elements.size() - 1);
+    }
+
+    @Override
+    public void clear(){
+        for(T m: elements){
+            m.setSetPosition(kind, -1);
+        }
+        elements.clear();
+    }
+}
@@ -7,10 +7,6 @@ import java.math.RoundingMode;
 
 import javafx.util.Pair;
 
-import org.jblas.DoubleMatrix;
-import org.jblas.Solve;
-import org.jblas.*;
-
 /**
  * Pool class represent a mining pool in a simulation.
  */
@@ -51,6 +47,20 @@ public class Pool {
      * Necessary for finding arg max of revenue desity function.
      */
     private ArrayList<int[]> infeltrationPermutations;
+    /**
+     * For every pool the previous pool (lower id) that is equivalent to it from the point of view of this pool, -1 if none.
+     * Permutations that only swap rates between equivalent pools yield the same revenue density,
+     * so rates of equivalent pools are only generated in non-decreasing order.
+     */
+    private int[] previousEquivalentPool;
+    /**
+     * Approximate best response search, null if best responses are searched exhaustively.
+     */
+    private LocalBestResponse localSearch;
+    /**
+     * Amount of revenue densities calculated for the last best response.
+     */
+    private int lastSearchEvaluations;
     /**
      * Income for the whole game, and income if noone would attack.
      */
@@ -59,11 +69,32 @@ public class Pool {
     /**
      * All mining members.
      */
-    private ArrayList<Miner> members;
+    private MinerSet<Miner> members = new MinerSet<>(MinerSet.MEMBERSHIP);
+    /**
+     * Honest members, subset of all mining members.
+     */
+    private MinerSet<Miner> honestMembers = new MinerSet<>(MinerSet.ROLE);
     /**
      * Sabotaging members.
      */
-    private ArrayList<AttackingMiner> sabotagers = new ArrayList<>();
+    private MinerSet<AttackingMiner> sabotagers = new MinerSet<>(MinerSet.SABOTAGE);
+    /**
+     * Sabotaging members grouped by the pool they attack.
+     */
+    private ArrayList<MinerSet<AttackingMiner>> sabotagersByTarget;
+    /**
+     * Reusable solver for the revenue density system.
+     */
+    private LinearSolver solver;
+    /**
+     * Aggregates that are kept up to date on every change of membership or infiltration rates:
+     * -amount of loyal miners (members - own infiltration rate + sabotagers).
+     * -sum of own infiltration rates to all other pools.
+     * -sum of partial proofs of work of all members and sabotagers.
+     */
+    private int loyalMiners;
+    private int totalInfiltrationRate;
+    private double totalPPoW;
 
     public Pool(Simulation sim, int id, double fee, ArrayList<Miner> miners){
         this.sim = sim;
@@ -71,7 +102,6 @@ public class Pool {
         this.revenue = 0;
         this.contributionFees = fee;
         this.ownInfiltrationRate = 0;
-        this.members = miners;
         this.incomeWholeGame = 0;
         this.incomeWholeGameNooneattack = 0;
 
@@ -80,7 +110,125 @@ public class Pool {
             infiltrationRates[i] = 0;
         }
 
+        this.sabotagersByTarget = new ArrayList<>(sim.getAmountPools());
+        for(int i = 0; i < sim.getAmountPools(); i++){
+            sabotagersByTarget.add(new MinerSet<AttackingMiner>(MinerSet.ROLE));
+        }
+
         this.infeltrationPermutations = new ArrayList<>();
+        this.previousEquivalentPool = new int[sim.getAmountPools()];
+        if(sim.getConfig().getLocalSearchRadius() > 0){
+            this.localSearch = new LocalBestResponse(this, sim.getConfig().getLocalSearchRadius(),
+                    sim.getConfig().getLocalSearchRestarts());
+        }
+        this.solver = sim.createSolver();
+        setMembers(miners);
+    }
+
+    /**
+     * Recalculate all aggregates from scratch. Only needed when membership lists are replaced.
+     */
+    private void recalculateAggregates(){
+        loyalMiners = members.size() - ownInfiltrationRate + sabotagers.size();
+        totalInfiltrationRate = 0;
+        for(int rate: infiltrationRates){
+            totalInfiltrationRate += rate;
+        }
+        totalPPoW = 0;
+        for(Miner m: members){
+            totalPPoW += m.getpPoW();
+        }
+        for(Miner m: sabotagers){
+            totalPPoW += m.getpPoW();
+        }
+    }
+
+    /**
+     * Add miner who mines in this pool (honestly or as a sabotager of another pool).
+     * 
+     * @param m new member.
+     */
+    public void addMember(Miner m){
+        hashCounts();
+        members.add(m);
+        if(m instanceof HonestMiner){
+            honestMembers.add(m);
+        }
+        loyalMiners++;
+        totalPPoW += m.getpPoW();
+        hashCounts();
+    }
+
+    /**
+     * Remove miner who mines in this pool.
+     * 
+     * @param m member to remove.
+     */
+    public void removeMember(Miner m){
+        hashCounts();
+        if(members.remove(m)){
+            honestMembers.remove(m);
+            loyalMiners--;
+            totalPPoW -= m.getpPoW();
+            resetPPoWIfEmpty();
+        }
+        hashCounts();
+    }
+
+    /**
+     * Add own miner who sabotages another pool.
+     * 
+     * @param m new sabotager, its attacked pool has to be set.
+     */
+    public void addSabotager(AttackingMiner m){
+        hashCounts();
+        sabotagers.add(m);
+        sabotagersByTarget.get(m.getAttackedPoolId()).add(m);
+        loyalMiners++;
+        totalPPoW += m.getpPoW();
+        hashCounts();
+    }
+
+    /**
+     * Remove own miner who sabotages another pool.
+     * 
+     * @param m sabotager to remove.
+     */
+    public void removeSabotager(AttackingMiner m){
+        hashCounts();
+        if(sabotagers.remove(m)){
+            sabotagersByTarget.get(m.getAttackedPoolId()).remove(m);
+            loyalMiners--;
+            totalPPoW -= m.getpPoW();
+            resetPPoWIfEmpty();
+        }
+        hashCounts();
+    }
+
+    /**
+     * XOR the current member, sabotager and infiltration counts into the state hash of the simulation.
+     * Called once before and once after every change of these counts.
+     */
+    private void hashCounts(){
+        sim.getStateHash().toggleCounts(id, members.size(), sabotagers.size(), ownInfiltrationRate);
+    }
+
+    /**
+     * Account for a changed partial proof of work of a member or sabotager.
+     * 
+     * @param delta difference between the new and the old partial proof of work.
+     */
+    void updatePPoW(double delta){
+        totalPPoW += delta;
+    }
+
+    /**
+     * Drop accumulated rounding errors once nobody is left in the pool.
+     */
+    private void resetPPoWIfEmpty(){
+        if(members.isEmpty() && sabotagers.isEmpty()){
+            totalPPoW = 0;
+        }
     }
 
     /**
@@ -99,7 +247,15 @@ public class Pool {
         for(Miner m: members) {
             if (!m.isWorking()) {
                 assignTask(m);
+                double oldPPoW = m.getpPoW();
                 m.generatePoW();
+
+                // Sabotagers also count towards partial proofs of work of their own pool.
+                double delta = m.getpPoW() - oldPPoW;
+                totalPPoW += delta;
+                if(m instanceof AttackingMiner){
+                    sim.getPools().get(((AttackingMiner) m).getPoolId()).updatePPoW(delta);
+                }
             }
         }
     }
@@ -135,62 +291,60 @@ public class Pool {
      * Change infiltration rates to all other pools.
      */
     public void changeMiners(){
-        int n;
         int[] newRate;
-        // Find arg max of own revenue density function.
-        newRate = calculateBestInfRate();
+        // Find arg max of own revenue density function, or take it from the log when replaying.
+        if(sim.getReplay() != null){
+            newRate = sim.getReplay().nextRates(sim.getTime(), id);
+            this.revenueDensityPrevRound = this.revenueDensity;
+            setRevenueDensity(sim.getReplay().getLastDensity());
+        } else {
+            newRate = calculateBestInfRate();
+        }
+        sim.recordRates(this, newRate);
+        applyRates(newRate);
+    }
 
-        // Switch own miners between pools accordingly.
+    /**
+     * Switch own miners between pools according to new infiltration rates.
+     * 
+     * @param newRate infiltration rate to every pool.
+     */
+    void applyRates(int[] newRate){
         for(Pool p: sim.getPools()){
             int poolId = p.getId();
             while(newRate[poolId] > infiltrationRates[poolId]){
-                infiltrationRates[poolId]++;
+                changeInfiltrationRate(poolId, 1);
                 p.increaseOwnInfiltrationRate();
-                n = 0;
-                while (n < members.size() && (members.get(n) instanceof AttackingMiner)) {
-                    n++;
-                }
-                if (n < members.size()) {
-                    Miner m = members.get(n);
-                    members.remove(m);
+                Miner m = honestMembers.peekLast();
+                if (m != null) {
+                    removeMember(m);
 
                     AttackingMiner am = new AttackingMiner(this.sim, m.getId(), this.id);
                     am.setAttackedPoolId(poolId);
-                    this.sabotagers.add(am);
+                    addSabotager(am);
+                    p.addMember(am);
 
-                    ArrayList<Miner> newMembers = p.getMembers();
-                    newMembers.add(am);
-                    p.setMembers(newMembers);
-
-                    sim.getMiners().remove(m);
-                    sim.getMiners().add(am);
+                    sim.replaceMiner(m, am);
                 }
             }
 
             while(newRate[poolId] < infiltrationRates[poolId]){
-                infiltrationRates[poolId]--;
+                changeInfiltrationRate(poolId, -1);
                 p.decreaseOwnInfiltrationRate();
 
-                AttackingMiner am = new AttackingMiner(sim, -1, -1);
-
-                for(int i = 0; i < sabotagers.size(); i++){
-                    if(sabotagers.get(i).getAttackedPoolId() == poolId){
-                        am = sabotagers.get(i);
-                        break;
-                    }
+                // Rates may exceed the actual amount of sabotagers if there were not enough honest members.
+                AttackingMiner am = sabotagersByTarget.get(poolId).peekLast();
+                if(am == null){
+                    continue;
                 }
 
-                ArrayList<Miner> newMembers = p.getMembers();
-                newMembers.remove(am);
-                p.setMembers(newMembers);
+                p.removeMember(am);
 
                 HonestMiner hm = new HonestMiner(this.sim, am.getId(), this.id);
-                this.members.add(hm);
-
-                sabotagers.remove(am);
+                addMember(hm);
+                removeSabotager(am);
 
-                sim.getMiners().remove(am);
-                sim.getMiners().add(hm);
+                sim.replaceMiner(am, hm);
             }
         }
     }
@@ -231,14 +385,7 @@ public class Pool {
      * based on their partial proof of work.
      */
     public void sendRevenueToAll(){
-        double amountpow = 0;
-        for(int i = 0; i < this.sabotagers.size(); i++){
-            amountpow += sabotagers.get(i).getpPoW();
-        }
-        for(int i = 0; i < this.members.size(); i++){
-            amountpow += members.get(i).getpPoW();
-        }
-        double eachRevenue = this.revenue/amountpow;
+        double eachRevenue = this.revenue/totalPPoW;
         for(AttackingMiner m: this.sabotagers){
             m.setRevenueInOwnPool(eachRevenue * m.getpPoW());
             incomeWholeGame += eachRevenue * m.getpPoW();
@@ -265,71 +412,75 @@ public class Pool {
      * @return revenue density value.
      */
     public double calculateExpectedRevenueDensityGeneral(int[] rates){
+        buildSystem(rates);
+        return solver.solveFor(id);
+    }
+
+    /**
+     * Calculate revenue densities of all pools with the current infiltration rates.
+     * The system is the same from the point of view of every pool, so one solve replaces one per pool.
+     * 
+     * @return revenue density of every pool.
+     */
+    double[] calculateRevenueDensities(){
+        buildSystem(infiltrationRates);
+        return solver.solveAll();
+    }
+
+    /**
+     * Write the system of revenue densities into the solver, with the given rates instead of own infiltration rates.
+     */
+    private void buildSystem(int[] rates){
 
         // calculate own coeficients in a system of linear equations
         int newInfRate = 0;
         double directRevenue;
-        double[][] coefs = new double[sim.getAmountPools()][sim.getAmountPools()];
-        double[][] constants = new double[sim.getAmountPools()][1];
+        solver.clear();
 
         for(int i = 0; i < rates.length; i++){
             newInfRate += rates[i];
         }
 
-        int simAttackingPower = newInfRate;
+        int simAttackingPower = newInfRate + sim.getAttackingPower() - totalInfiltrationRate;
 
-        for(Pool p: sim.getPools()){
-            simAttackingPower += p.getOwnInfiltrationRate() - infiltrationRates[p.getId()];
-        }
-
-        int loyalMiners = members.size() - ownInfiltrationRate + sabotagers.size();
+        int loyalMiners = this.loyalMiners;
 
         directRevenue = (double)(loyalMiners - newInfRate) /
                 (sim.getMiners().size() - simAttackingPower);
 
-        constants[id][0] = directRevenue / (loyalMiners + ownInfiltrationRate);
-        coefs[id][id] = 1;
+        solver.setConstant(id, directRevenue / (loyalMiners + ownInfiltrationRate));
+        solver.setCoefficient(id, id, 1);
 
         for(int i = 0; i < sim.getAmountPools(); i++){
             if(i != id){
-                coefs[id][i] = -1 * (double)rates[i]/(loyalMiners + ownInfiltrationRate);
+                solver.setCoefficient(id, i, -1 * (double)rates[i]/(loyalMiners + ownInfiltrationRate));
             }
         }
 
         // calculate coefs for all other pools
         for(Pool p: sim.getPools()){
             int poolId = p.getId();
-            int infRate = 0;
 
             if(poolId != this.id) {
-                for (int i = 0; i < rates.length; i++) {
-                    infRate += p.getInfiltrationRates()[i];
-                }
+                int infRate = p.getTotalInfiltrationRate();
 
                 int ownNewInfRate = p.getOwnInfiltrationRate() - infiltrationRates[poolId] + rates[poolId];
 
-                loyalMiners = p.getMembers().size() - p.getOwnInfiltrationRate() + p.getSabotagers().size();
+                loyalMiners = p.getLoyalMiners();
 
                 directRevenue = (double)(loyalMiners - infRate) /
                         (sim.getMiners().size() - simAttackingPower);
 
-                constants[poolId][0] = directRevenue / (loyalMiners + ownNewInfRate);
-                coefs[poolId][poolId] = 1;
+                solver.setConstant(poolId, directRevenue / (loyalMiners + ownNewInfRate));
+                solver.setCoefficient(poolId, poolId, 1);
 
                 for (int i = 0; i < sim.getAmountPools(); i++) {
                     if (i != poolId) {
-                        coefs[poolId][i] = -1 * (double)p.getInfiltrationRates()[i] / (loyalMiners + ownNewInfRate);
+                        solver.setCoefficient(poolId, i, -1 * (double)p.getInfiltrationRates()[i] / (loyalMiners + ownNewInfRate));
                     }
                 }
             }
         }
-
-        // Use jblas to find result
-        DoubleMatrix coef_matrix = new DoubleMatrix(coefs);
-        DoubleMatrix const_matrix = new DoubleMatrix(constants);
-        DoubleMatrix res = Solve.solve(coef_matrix, const_matrix);
-
-        return res.get(id);
     }
 
 /** Hard coded option for 2 pools in the system for debugging purposes
@@ -372,9 +523,25 @@ public class Pool {
         int[] bestRate = infiltrationRates;
 
         // Feasible range for attacking miners from paper.
-        int top = members.size() - ownInfiltrationRate + sabotagers.size();
+        int top = loyalMiners;
 
         double maxRev = calculateExpectedRevenueDensityGeneral(infiltrationRates);
+
+        if(localSearch != null){
+            // Same edge case as below, with no sabotagers as first choice.
+            if(Double.isNaN(maxRev) && top >= sim.getMiners().size()/sim.getAmountPools()){
+                maxRev = 1.0/(sim.getMiners().size());
+                bestRate = new int[sim.getAmountPools()];
+            }
+            bestRate = localSearch.search(infiltrationRates, bestRate, maxRev, top, sim.getSearchRandom(id));
+            lastSearchEvaluations = localSearch.getEvaluations() + 1;
+
+            this.revenueDensityPrevRound = this.revenueDensity;
+            setRevenueDensity(localSearch.getBestDensity());
+            return bestRate;
+        }
+
+        findEquivalentPools();
         generateInfiltrationPermutations(top, 0, new int[sim.getAmountPools()]);
 
         // Choose infiltration rates that yield max of revenue density function.
@@ -393,15 +560,80 @@ public class Pool {
             }
         }
 
+        lastSearchEvaluations = this.infeltrationPermutations.size() + 1;
         this.infeltrationPermutations.clear();
         this.revenueDensityPrevRound = this.revenueDensity;
-        this.revenueDensity = maxRev;
+        setRevenueDensity(maxRev);
 
         return bestRate;
     }
 
+    /**
+     * Group other pools that can be swapped without changing the system of revenue densities of this pool.
+     * Pools a and b are equivalent if they have the same amount of loyal miners and own infiltration rate
+     * (without the sabotagers of this pool), the same infiltration rates to all remaining pools,
+     * attack each other equally and are attacked equally by all remaining pools.
+     * Each pool is compared with the first pool of every group found so far.
+     */
+    private void findEquivalentPools(){
+        List<Pool> pools = sim.getPools();
+        int[] lastInGroup = new int[pools.size()];
+
+        for(int a = 0; a < pools.size(); a++){
+            previousEquivalentPool[a] = -1;
+            lastInGroup[a] = a;
+            if(a == id){
+                continue;
+            }
+
+            for(int b = 0; b < a; b++){
+                // b is the first pool of its group.
+                if(b != id && lastInGroup[b] >= 0 && previousEquivalentPool[b] == -1 && equivalentPools(pools.get(a), pools.get(b))){
+                    previousEquivalentPool[a] = lastInGroup[b];
+                    lastInGroup[b] = a;
+                    lastInGroup[a] = -1;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether swapping both pools leaves the system of revenue densities of this pool unchanged.
+     */
+    private boolean equivalentPools(Pool a, Pool b){
+        int ida = a.getId();
+        int idb = b.getId();
+        if(a.getLoyalMiners() != b.getLoyalMiners()
+                || a.getOwnInfiltrationRate() - infiltrationRates[ida] != b.getOwnInfiltrationRate() - infiltrationRates[idb]){
+            return false;
+        }
+
+        int[] ratesA = a.getInfiltrationRates();
+        int[] ratesB = b.getInfiltrationRates();
+        if(ratesA[idb] != ratesB[ida]){
+            return false;
+        }
+
+        for(Pool p: sim.getPools()){
+            int i = p.getId();
+            if(i == ida || i == idb){
+                continue;
+            }
+            if(ratesA[i] != ratesB[i]){
+                return false;
+            }
+            if(i != id && p.getInfiltrationRates()[ida] != p.getInfiltrationRates()[idb]){
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Generate possible infiltration rates.
+     * Rates of equivalent pools (see findEquivalentPools) are non-decreasing by pool id,
+     * which is the first of all their swaps in the order of generation.
      * 
      * @param possibleAmountMiners maximum amount of miners that can sabotage. 
      * @param permutation current permutation that is being generated.
@@ -411,7 +643,8 @@ public class Pool {
             this.infeltrationPermutations.add(permutation.clone());
         }
         else {
-            for (int i = 0; i <= possibleAmountMiners; i++) {
+            int previous = previousEquivalentPool[pools];
+            for (int i = previous >= 0 ? permutation[previous] : 0; i <= possibleAmountMiners; i++) {
                 permutation[pools] = i;
                 generateInfiltrationPermutations(possibleAmountMiners - i, pools + 1, permutation);
 
@@ -422,24 +655,54 @@ public class Pool {
         }
     }
 
-    public ArrayList<Miner> getMembers() {
+    public MinerSet<Miner> getMembers() {
         return members;
     }
 
-    public void setMembers(ArrayList<Miner> members) {
-        this.members = members;
+    /**
+     * Replace all mining members.
+     * 
+     * @param miners new members.
+     */
+    public void setMembers(List<Miner> miners) {
+        hashCounts();
+        members.clear();
+        honestMembers.clear();
+        for(Miner m: miners){
+            members.add(m);
+            if(m instanceof HonestMiner){
+                honestMembers.add(m);
+            }
+        }
+        recalculateAggregates();
+        hashCounts();
     }
 
     public int getId() {
         return id;
     }
 
-    public ArrayList<AttackingMiner> getSabotagers() {
+    public MinerSet<AttackingMiner> getSabotagers() {
         return sabotagers;
     }
 
-    public void setSabotagers(ArrayList<AttackingMiner> s) {
-        this.sabotagers = s;
+    /**
+     * Replace all sabotaging members.
+     * 
+     * @param s new sabotagers.
+     */
+    public void setSabotagers(List<AttackingMiner> s) {
+        hashCounts();
+        sabotagers.clear();
+        for(MinerSet<AttackingMiner> target: sabotagersByTarget){
+            target.clear();
+        }
+        for(AttackingMiner m: s){
+            sabotagers.add(m);
+            sabotagersByTarget.get(m.getAttackedPoolId()).add(m);
+        }
+        recalculateAggregates();
+        hashCounts();
     }
 
     public double getContributionFees() {
@@ -447,7 +710,11 @@ public class Pool {
     }
 
     public void setContributionFees(double fee) {
+        if(fee != contributionFees){
+            sim.markMinersDirty();
+        }
         this.contributionFees = fee;
+        sim.updateEffectiveDensity(id);
     }
 
     public int[] getInfiltrationRates() {
@@ -455,7 +722,25 @@ public class Pool {
     }
 
     public void setInfiltrationRates(int[] infr) {
+        for(int i = 0; i < infiltrationRates.length; i++){
+            sim.getStateHash().toggleRate(id, i, infiltrationRates[i]);
+            sim.getStateHash().toggleRate(id, i, infr[i]);
+        }
         infiltrationRates = infr;
+        recalculateAggregates();
+    }
+
+    /**
+     * Change own infiltration rate to one other pool.
+     * 
+     * @param poolId attacked pool.
+     * @param delta amount of sabotagers added (or removed if negative).
+     */
+    public void changeInfiltrationRate(int poolId, int delta) {
+        sim.getStateHash().toggleRate(id, poolId, infiltrationRates[poolId]);
+        infiltrationRates[poolId] += delta;
+        totalInfiltrationRate += delta;
+        sim.getStateHash().toggleRate(id, poolId, infiltrationRates[poolId]);
     }
 
     public double getRevenueDensity() {
@@ -463,15 +748,21 @@ public class Pool {
     }
 
     public void setRevenueDensity(double revenueDensity) {
+        if(Double.doubleToLongBits(revenueDensity) != Double.doubleToLongBits(this.revenueDensity)){
+            sim.markMinersDirty();
+        }
+        sim.getStateHash().toggleDensity(id, this.revenueDensity);
         this.revenueDensity = revenueDensity;
+        sim.getStateHash().toggleDensity(id, revenueDensity);
+        sim.updateEffectiveDensity(id);
     }
 
     public void decreaseOwnInfiltrationRate() {
-        this.ownInfiltrationRate--;
+        setOwnInfiltrationRate(ownInfiltrationRate - 1);
     }
 
     public void increaseOwnInfiltrationRate() {
-        this.ownInfiltrationRate++;
+        setOwnInfiltrationRate(ownInfiltrationRate + 1);
     }
 
     public int getOwnInfiltrationRate() {
@@ -479,7 +770,30 @@ public class Pool {
     }
 
     public void setOwnInfiltrationRate(int rate) {
+        hashCounts();
+        loyalMiners -= rate - ownInfiltrationRate;
+        sim.changeAttackingPower(rate - ownInfiltrationRate);
         ownInfiltrationRate = rate;
+        hashCounts();
+    }
+
+    public int getLoyalMiners() {
+        return loyalMiners;
+    }
+
+    /**
+     * @return amount of revenue densities calculated to find the last best response.
+     */
+    public int getLastSearchEvaluations() {
+        return lastSearchEvaluations;
+    }
+
+    public int getTotalInfiltrationRate() {
+        return totalInfiltrationRate;
+    }
+
+    public double getTotalPPoW() {
+        return totalPPoW;
     }
 
     public double getRevenueDensityIfNooneAttack() {
@@ -0,0 +1,119 @@
+package model;
+
+/**
+ * Indexed max-heap of pools by effective revenue density, so miners find the best pool without scanning all pools.
+ * The order matches a scan over pools in id order that keeps the first strictly better pool:
+ * among equal densities the lowest id wins, and NaN densities come after all others.
+ * Updating the density of a pool takes O(log P), the best pool is at the root.
+ */
+class PoolDensityIndex {
+
+    /**
+     * Effective density of every pool by id.
+     */
+    private final double[] densities;
+    /**
+     * Pool ids in heap order, and position of every pool id in the heap.
+     */
+    private final int[] heap;
+    private final int[] positions;
+
+    /**
+     * @param amountPools amount of pools, all with density 0 until updated.
+     */
+    PoolDensityIndex(int amountPools){
+        this.densities = new double[amountPools];
+        this.heap = new int[amountPools];
+        this.positions = new int[amountPools];
+        for(int i = 0; i < amountPools; i++){
+            heap[i] = i;
+            positions[i] = i;
+        }
+    }
+
+    /**
+     * @param poolId id of a pool.
+     * @return effective density of the pool.
+     */
+    double get(int poolId){
+        return densities[poolId];
+    }
+
+    /**
+     * @return id of the pool with the highest effective density, -1 if there are no pools.
+     */
+    int best(){
+        return heap.length > 0 ? heap[0] : -1;
+    }
+
+    /**
+     * @param poolId id of a pool.
+     * @param density new effective density of the pool.
+     */
+    void update(int poolId, double density){
+        densities[poolId] = density;
+        int pos = positions[poolId];
+        if(pos > 0 && before(poolId, heap[(pos - 1) / 2])){
+            siftUp(pos);
+        } else {
+            siftDown(pos);
+        }
+    }
+
+    private void siftUp(int pos){
+        int id = heap[pos];
+        while(pos > 0){
+            int parent = (pos - 1) / 2;
+            if(!before(id, heap[parent])){
+                break;
+            }
+            place(heap[parent], pos);
+            pos = parent;
+        }
+        place(id, pos);
+    }
+
+    private void siftDown(int pos){
+        int id = heap[pos];
+        while(true){
+            int child = 2 * pos + 1;
+            if(child >= heap.length){
+                break;
+            }
+            if(child + 1 < heap.length && before(heap[child + 1], heap[child])){
+                child++;
+            }
+            if(!before(heap[child], id)){
+                break;
+            }
+            place(heap[child], pos);
+            pos = child;
+        }
+        place(id, pos);
+    }
+
+    private void place(int id, int pos){
+        heap[pos] = id;
+        positions[id] = pos;
+    }
+
+    /**
+     * @return whether pool a comes before pool b: higher density, or equal density and lower id. NaN comes last.
+     */
+    private boolean before(int a, int b){
+        double x = densities[a];
+        double y = densities[b];
+        if(x > y){
+            return true;
+        }
+        if(x < y){
+            return false;
+        }
+        boolean nanX = Double.isNaN(x);
+        boolean nanY = Double.isNaN(y);
+        if(nanX != nanY){
+            return nanY;
+        }
+        return a < b;
+    }
+}
@@ -0,0 +1,24 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * Puts every miner into a uniformly drawn pool.
+ */
+public class RandomDistribution implements MinerDistribution {
+
+    static final String NAME = "random";
+
+    public int[] assign(int amountMiners, int amountPools, Random rand){
+        int[] pools = new int[amountMiners];
+        for(int i = 0; i < amountMiners; i++){
+            pools[i] = rand.nextInt(amountPools);
+        }
+        return pools;
+    }
+
+    @Override
+    public String toString(){
+        return NAME;
+    }
+}
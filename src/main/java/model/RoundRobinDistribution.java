@@ -0,0 +1,24 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * Deals miners out to pools in turn, so pool sizes differ by at most one.
+ */
+public class RoundRobinDistribution implements MinerDistribution {
+
+    static final String NAME = "round-robin";
+
+    public int[] assign(int amountMiners, int amountPools, Random rand){
+        int[] pools = new int[amountMiners];
+        for(int i = 0; i < amountMiners; i++){
+            pools[i] = i % amountPools;
+        }
+        return pools;
+    }
+
+    @Override
+    public String toString(){
+        return NAME;
+    }
+}
@@ -8,7 +8,7 @@ import javafx.util.Pair;
 /**
  * Main simulation class. Here, the simulation is initialized and proceed.
  */
-public class Simulation extends Observable {
+public class Simulation {
 
 	/**
 	 * An integer that keeps track of time.
@@ -25,10 +25,10 @@ public class Simulation extends Observable {
 	 */
 	private boolean isConverged;
 	/**
-	 * ArrayLists with all miners and all pools.
+	 * All pools, and registry of all miners indexed by their id.
 	 */
 	private ArrayList<Pool> pools;
-	private ArrayList<Miner> miners;
+	private MinerRegistry miners;
 	/**
 	 * Array with pool revenues at each step.
 	 */
@@ -37,12 +37,7 @@ public class Simulation extends Observable {
 	 * Additional convergence variable to check that all miners converge to a particular pool.
 	 */
 	private int checkConvergence = 0;
-	/**
-	 * Based on the bound variable miners can be separated quantitetivelly into different pools. 
-	 */
-	private int bound;
-	private int bound2;
-	private Random rand = new Random();
+	private Random rand;
 	/**
 	 * An integer that may be used for amount of steps normalization.
 	 */
@@ -53,69 +48,196 @@ public class Simulation extends Observable {
 	 */
 	private int currentPoolRoundRobin = 0;
 	private int currentMinerRoundRobin = 0;
+	/**
+	 * Miners of the current decision batch and their choices, reused every step.
+	 */
+	private Miner[] batchMiners = new Miner[0];
+	private int[] batchChoices = new int[0];
+	/**
+	 * Stream for inertia draws, keyed like common random numbers so that they never shift the draws of mining
+	 * and a replay, which takes moves from the log, needs none.
+	 */
+	private final MinerRandom inertiaRandom = new MinerRandom();
+	/**
+	 * Stream for restarts of the local search of pools, keyed by pool id for the same reason.
+	 */
+	private final MinerRandom searchRandom = new MinerRandom();
+	/**
+	 * State of dirty scheduling, see SimulationConfig.isDirtyScheduling:
+	 * -amount of miners, in round robin order from the cursor, not evaluated since effective densities or mining power last changed.
+	 * -for every pool the state hash at which its last best response changed nothing, and whether there is such a hash.
+	 * -whether no miner and no pool can change anymore.
+	 */
+	private int minersToEvaluate = 0;
+	private long[] poolQuietHash;
+	private boolean[] poolQuiet;
+	private boolean quiescent = false;
 	/**
 	 * Revenue for a mined block.
 	 */
 	private final double revenueForBlock = 100;
+	/**
+	 * From this amount of pools on, revenue density systems are solved with jblas instead of the pure Java solver.
+	 */
+	public static final int NATIVE_SOLVER_THRESHOLD = 64;
+	/**
+	 * Whether jblas may be used for large systems at all.
+	 */
+	private boolean useNativeSolver;
+	/**
+	 * Aggregates kept up to date whenever miners change role:
+	 * -amount of miners that are not sabotaging (mining power of the network).
+	 * -sum of infiltration rates of all pools.
+	 */
+	private int miningPower = 0;
+	private int attackingPower = 0;
+
+	/**
+	 * Parameters this simulation was created with.
+	 */
+	private final SimulationConfig config;
+	/**
+	 * Log that decisions are written to, and log that decisions are read from instead of being computed.
+	 */
+	private DecisionLog decisionLog;
+	private DecisionReplay replay;
+	/**
+	 * Incrementally updated hash of the decision state, and the time steps at which states were seen.
+	 */
+	private final StateHash stateHash = new StateHash();
+	private StateHistory stateHistory;
+	/**
+	 * Hash of the state without cursors after the previous step, and the last step at which it changed.
+	 */
+	private long prevStateHash = 0;
+	private int lastStateChange = 0;
+	/**
+	 * Hash of the state without cursors after the previous decisions, and the last step at which a decision changed anything.
+	 */
+	private long decisionStateHash = 0;
+	private int lastDecisionChange = 0;
+	/**
+	 * Length of the cycle the simulation got stuck in, 0 if no cycle was detected.
+	 */
+	private int cycleLength = 0;
+	/**
+	 * Tolerant convergence detector, null to require exactly equal revenue densities.
+	 */
+	private ConvergenceDetector convergenceDetector;
+	/**
+	 * Revenue density of every pool after contribution fees, as seen by miners, ordered to find the best pool.
+	 * An entry is only recomputed after the density or fee of its pool has changed.
+	 */
+	private PoolDensityIndex densityIndex;
+	/**
+	 * Receives the state of all pools after every step, null if the simulation is not traced.
+	 */
+	private TraceWriter traceWriter;
+	/**
+	 * Typed events of this simulation, and whether it was converged after the previous step.
+	 */
+	private final EventBus events = new EventBus();
+	private boolean wasConverged = false;
+	/**
+	 * Latest published state, see SimulationSnapshot.
+	 */
+	private volatile SimulationSnapshot snapshot;
+	/**
+	 * Per miner streams for common random numbers, null if all draws come from rand.
+	 */
+	private MinerRandom minerRandom;
 
 	public Simulation(int amountMiners, int amountPools, int amountSoloM){
-		this.amountMiners = amountMiners;
-		this.amountPools = amountPools;
-		this.amountSoloMiners = amountSoloM;
+		this(new SimulationConfig(amountMiners, amountPools, amountSoloM));
+	}
+
+	public Simulation(SimulationConfig config){
+		this(config, null);
+	}
+
+	/**
+	 * Create simulation whose decisions are taken from a log.
+	 * 
+	 * @param config parameters stored in the log.
+	 * @param replay log to read decisions from, null to compute decisions.
+	 */
+	Simulation(SimulationConfig config, DecisionReplay replay){
+		this.config = config;
+		this.replay = replay;
+		this.useNativeSolver = config.isUseNativeSolver();
+		this.amountMiners = config.getAmountMiners();
+		this.amountPools = config.getAmountPools();
+		this.amountSoloMiners = config.getAmountSoloMiners();
+		this.rand = new Random(config.getSeed());
+		if(config.isCommonRandomNumbers()){
+			this.minerRandom = new MinerRandom();
+		}
+		if(config.isToleranceConvergence()){
+			this.convergenceDetector = new ConvergenceDetector(config);
+		}
+		// A revisited state only proves a cycle if decisions depend on nothing but the state.
+		// Restarts of the local search and decision inertia draw random numbers, so such runs are not checked.
+		if(config.getCycleHistoryCapacity() > 0 && config.getLocalSearchRadius() == 0 && config.getDecisionInertia() == 0){
+			this.stateHistory = new StateHistory(config.getCycleHistoryCapacity());
+		}
 		this.isConverged = false;
-		this.bound = bound;
-		this.bound2 = bound2;
 		this.poolRevenues = new double[amountPools];
+		this.densityIndex = new PoolDensityIndex(amountPools);
 		pools = new ArrayList<>(amountPools);
-		miners = new ArrayList<>(amountMiners);
+		miners = new MinerRegistry(amountMiners + amountSoloMiners);
 		initialize();
+		this.minersToEvaluate = miners.size();
+		this.poolQuietHash = new long[amountPools];
+		this.poolQuiet = new boolean[amountPools];
+		if(config.getSnapshotInterval() > 0){
+			this.snapshot = new SimulationSnapshot(this);
+		}
 	}
 
 	/**
 	 * Initialize simulation.
+	 * Miners are put into pools by the distribution of the config in one pass, or as the warm start of the config says,
+	 * and the initial revenue densities of all pools come from a single solve of the system they share.
 	 */
 	private void initialize(){
-		for(int i = 0; i < amountMiners; i++){
-			int pool = i % amountPools;
+		WarmStart warmStart = replay == null ? config.getWarmStart() : null;
+		int[] warmSizes = null;
+		MinerDistribution distribution = config.getMinerDistribution();
+		if(warmStart != null){
+			warmSizes = warmStart.poolSizes(amountMiners, amountPools);
+			distribution = BoundDistribution.ofSizes(warmSizes);
+		}
 
-			//Options for dividing miners between pools
+		int[] poolOfMiner = distribution.assign(amountMiners, amountPools, rand);
+		int[] sizes = new int[amountPools];
+		for(int pool: poolOfMiner){
+			sizes[pool]++;
+		}
 
-			/*int pool = 0;
-			int pool = rand.nextInt(amountPools);
-			if(i >= bound && i < bound2){
-				pool = 1;
-			}
-			if(i >= bound2){
-				pool = 2;
-			}*/
-			
-			/*int pool = 0;
-			if(i > bound){
-				pool = 1;
-			}*/
-			HonestMiner m = new HonestMiner(this, i, pool);
-			miners.add(m);
+		List<ArrayList<Miner>> poolMiners = new ArrayList<>(amountPools);
+		for(int i = 0; i < amountPools; i++){
+			poolMiners.add(new ArrayList<Miner>(sizes[i]));
+		}
+		for(int i = 0; i < amountMiners; i++){
+			HonestMiner m = new HonestMiner(this, i, poolOfMiner[i]);
+			addMiner(m);
+			poolMiners.get(poolOfMiner[i]).add(m);
 		}
 
 		for(int i = 0; i < amountPools; i++){
 			this.poolRevenues[i] = 0.0;
-			ArrayList<Miner> poolMiners = new ArrayList<>();
-
-			for(int j = 0; j < miners.size(); j++){
-				Miner m = miners.get(j);
-				if(m instanceof HonestMiner){
-					if (((HonestMiner) m).getPoolId() == i){
-						poolMiners.add(miners.get(j));
-					}
-				}
-			}
+			pools.add(new Pool(this, i, i * 0.01, poolMiners.get(i)));
+		}
 
-			Pool p = new Pool(this, i, i * 0.01, poolMiners);
-			pools.add(p);
+		if(warmStart != null){
+			for(Pool p: pools){
+				p.applyRates(warmStart.rates(p.getId(), warmSizes));
+			}
 		}
 
+		double[] densities = replay == null && amountPools > 0 ? pools.get(0).calculateRevenueDensities() : null;
 		for (Pool p: pools){
-			double set = p.calculateExpectedRevenueDensityGeneral(p.getInfiltrationRates());
+			double set = replay != null ? replay.getInitialDensity(p.getId()) : densities[p.getId()];
 			p.setRevenueDensity(set);
 			p.setRevenueDensityPrevRound(set);
 			p.setRevenueDensityIfNooneAttack(set);
@@ -123,14 +245,25 @@ public class Simulation extends Observable {
 
 		for(int i = 0 ; i < amountSoloMiners; i++){
 			SoloMiner m = new SoloMiner(this, amountMiners + i);
-			miners.add(m);
+			addMiner(m);
 		}
 	}
 
 	/**
 	 * Function that represents 1 time step of a simulation.
+	 * The step consists of four phases: mining, revenue distribution, decisions and bookkeeping.
 	 */
 	public void timeStep(){
+		mine();
+		distributeRevenue();
+		decide();
+		finishStep();
+	}
+
+	/**
+	 * First phase of a step: advance time and let all miners work.
+	 */
+	void mine(){
 		time ++;
 
 		for(Miner m: this.miners){
@@ -147,7 +280,23 @@ public class Simulation extends Observable {
 			p.assignTasks();
 			p.roundOfWork();
 		}
+	}
 
+	/**
+	 * Second phase of a step: pay found blocks and update revenue densities of miners.
+	 */
+	void distributeRevenue(){
+		payBlocks();
+
+		for(Miner m: miners){
+			m.calculateOwnRevDen();
+		}
+	}
+
+	/**
+	 * Pay found blocks to pools and share their revenue between members.
+	 */
+	private void payBlocks(){
 		int poolId = 0;
 		for(Pool p: this.pools){
 			p.updatePoF();
@@ -157,18 +306,29 @@ public class Simulation extends Observable {
 			poolId++;
 			p.sendRevenueToAll();
 		}
+	}
 
-		for(Miner m: miners){
-			m.calculateOwnRevDen();
-		}
-
-		// Once in a while (determined by s), one pool can change its inf rates and one miner can switch pool.
+	/**
+	 * Third phase of a step: on decision steps a batch of miners and one pool may change, then convergence is checked.
+	 */
+	void decide(){
+		// Once in a while (determined by s), one pool can change its inf rates and a batch of miners can switch pool.
 		if(time % s == 0){
-			miners.get(currentMinerRoundRobin).changePool(currentMinerRoundRobin);
-			currentMinerRoundRobin++;
-
-			if(currentMinerRoundRobin == miners.size()){
-				currentMinerRoundRobin = 0;
+			int batch = getDecisionBatch();
+			if(config.isDirtyScheduling()){
+				decideDirty(batch);
+				return;
+			}
+			if(replay != null){
+				for(int k = 0; k < batch; k++){
+					replay.applyMove(this, miners.get(currentMinerRoundRobin));
+					nextMiner();
+				}
+			} else if(batch == 1 && config.getDecisionInertia() == 0){
+				miners.get(currentMinerRoundRobin).changePool(currentMinerRoundRobin);
+				nextMiner();
+			} else {
+				decideBatch(batch);
 			}
 
 			for(Pool p: pools){
@@ -181,6 +341,155 @@ public class Simulation extends Observable {
 			pools.get(currentPoolRoundRobin).changeMiners();
 			currentPoolRoundRobin++;
 
+			if(stateHash.getStateHash() != decisionStateHash){
+				decisionStateHash = stateHash.getStateHash();
+				lastDecisionChange = time;
+			}
+
+			updateConvergence();
+		}
+	}
+
+	/**
+	 * Let a batch of miners choose against the state before any of them moves, then apply all choices.
+	 * Each miner that wants to move keeps its role with probability given by the inertia,
+	 * which damps herds of miners that would otherwise all leave for the same pool and come back together.
+	 * 
+	 * @param batch amount of miners that decide.
+	 */
+	private void decideBatch(int batch){
+		if(batchMiners.length < batch){
+			batchMiners = new Miner[batch];
+			batchChoices = new int[batch];
+		}
+
+		for(int k = 0; k < batch; k++){
+			batchMiners[k] = miners.get(currentMinerRoundRobin);
+			batchChoices[k] = batchMiners[k].choosePool();
+			nextMiner();
+		}
+		applyBatch(batch);
+	}
+
+	/**
+	 * Apply the first choices of the current batch, each held back with probability given by the inertia.
+	 * 
+	 * @param count amount of choices to apply.
+	 */
+	private void applyBatch(int count){
+		double inertia = config.getDecisionInertia();
+		for(int k = 0; k < count; k++){
+			if(batchChoices[k] == Miner.STAY){
+				continue;
+			}
+			if(inertia > 0 && inertiaRandom.reset(config.getSeed(), batchMiners[k].getId(), time, MinerRandom.INERTIA).nextDouble() < inertia){
+				// A miner held back may still move later, so the state is not stable yet.
+				lastDecisionChange = time;
+				markMinersDirty();
+				continue;
+			}
+			batchMiners[k].applyChoice(batchChoices[k]);
+		}
+		Arrays.fill(batchMiners, 0, count, null);
+	}
+
+	/**
+	 * Decision phase of dirty scheduling.
+	 * Miners only see effective densities of pools and the mining power, which are the same for all of them,
+	 * so after a change every miner is evaluated once more in round robin order. Miners that would stay
+	 * take no step: the batch is filled with the next miners that want to move.
+	 * Only pools whose last best response was computed in a different state are evaluated, the next one in round robin order.
+	 * Once no miner and no pool is left to evaluate, the state is a fixed point and the simulation converged.
+	 * 
+	 * @param batch amount of miners that may move.
+	 */
+	private void decideDirty(int batch){
+		if(batchMiners.length < batch){
+			batchMiners = new Miner[batch];
+			batchChoices = new int[batch];
+		}
+
+		int found = 0;
+		while(found < batch && minersToEvaluate > 0){
+			Miner m = miners.get(currentMinerRoundRobin);
+			nextMiner();
+			minersToEvaluate--;
+			int choice = m.choosePool();
+			if(choice != Miner.STAY){
+				batchMiners[found] = m;
+				batchChoices[found] = choice;
+				found++;
+			}
+		}
+		applyBatch(found);
+
+		for(Pool p: pools){
+			checkPool(p);
+		}
+
+		Pool p = nextDirtyPool();
+		if(p != null){
+			long before = stateHash.getStateHash();
+			p.changeMiners();
+			currentPoolRoundRobin = p.getId() + 1;
+			if(stateHash.getStateHash() == before){
+				poolQuietHash[p.getId()] = before;
+				poolQuiet[p.getId()] = true;
+			}
+		}
+
+		if(stateHash.getStateHash() != decisionStateHash){
+			decisionStateHash = stateHash.getStateHash();
+			lastDecisionChange = time;
+		}
+
+		quiescent = minersToEvaluate == 0 && nextDirtyPool() == null;
+		isConverged = quiescent || (convergenceDetector != null && convergenceDetector.update(this));
+	}
+
+	/**
+	 * @return next pool from the pool cursor on whose best response may differ in the current state, null if there is none.
+	 */
+	private Pool nextDirtyPool(){
+		long hash = stateHash.getStateHash();
+		for(int k = 0; k < pools.size(); k++){
+			int id = (currentPoolRoundRobin + k) % pools.size();
+			if(!poolQuiet[id] || poolQuietHash[id] != hash){
+				return pools.get(id);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Schedule every miner for evaluation after something all of them see has changed.
+	 */
+	void markMinersDirty(){
+		minersToEvaluate = miners.size();
+	}
+
+	/**
+	 * @return amount of miners that decide per decision step.
+	 */
+	private int getDecisionBatch(){
+		int batch = config.getDecisionBatch();
+		return batch <= 0 ? miners.size() : Math.min(batch, miners.size());
+	}
+
+	/**
+	 * Move the cursor to the miner whose turn is next.
+	 */
+	private void nextMiner(){
+		currentMinerRoundRobin++;
+		if(currentMinerRoundRobin == miners.size()){
+			currentMinerRoundRobin = 0;
+		}
+	}
+
+	private void updateConvergence(){
+		if(convergenceDetector != null){
+			isConverged = convergenceDetector.update(this);
+		} else {
 			isConverged = true;
 			checkConvergence();
 
@@ -190,19 +499,111 @@ public class Simulation extends Observable {
 				checkConvergence = 0;
 			}
 		}
+	}
 
-		// Simulation has converged.
-		if(isConverged && checkConvergence >= (amountMiners + amountSoloMiners)){
-			for(Pool p: pools){
-				//For debug purposes
-				System.out.println("id " + p.getId() + " " + (p.getMembers().size() + p.getSabotagers().size() - p.getOwnInfiltrationRate()));
+	/**
+	 * Run the given amount of steps, with the same outcome as calling timeStep as often.
+	 * Decisions only depend on the membership, infiltration rates and revenue densities, not on mining.
+	 * Once every miner and every pool decided without changing anything, the state is a fixed point
+	 * and the remaining steps only mine and pay revenue, which keeps income and revenue of every miner exact
+	 * while skipping the best response searches.
+	 * Steps are never skipped with approximate best responses (they draw random numbers), a decision log or a replay.
+	 * 
+	 * @param steps amount of steps to run.
+	 * @return amount of these steps that skipped decisions.
+	 */
+	public int advance(int steps){
+		int skipped = 0;
+		for(int i = 0; i < steps; i++){
+			if(isStable()){
+				mine();
+				payBlocks();
+				skipDecisions();
+				finishStep();
+				skipped++;
+			} else {
+				timeStep();
 			}
-		} else {
+		}
+		return skipped;
+	}
+
+	/**
+	 * @return whether decisions are known to leave the state unchanged from now on.
+	 */
+	private boolean isStable(){
+		if(replay != null || decisionLog != null || config.getLocalSearchRadius() > 0){
+			return false;
+		}
+		if(config.isDirtyScheduling()){
+			return quiescent;
+		}
+		int minerSteps = (miners.size() + getDecisionBatch() - 1) / getDecisionBatch();
+		return time - lastDecisionChange >= Math.max(minerSteps, pools.size());
+	}
+
+	/**
+	 * Decision phase of a stable step: move both cursors and update convergence as decide would.
+	 */
+	private void skipDecisions(){
+		if(config.isDirtyScheduling()){
+			// Nothing is left to evaluate, so neither cursor moves.
+			isConverged = true;
+			return;
+		}
+		currentMinerRoundRobin = (currentMinerRoundRobin + getDecisionBatch()) % miners.size();
+		if(currentPoolRoundRobin >= pools.size()){
+			currentPoolRoundRobin = 0;
+		}
+		currentPoolRoundRobin++;
+
+		updateConvergence();
+	}
+
+	/**
+	 * Last phase of a step: settle convergence, look for cycles, trace and publish events.
+	 */
+	void finishStep(){
+		// Simulation has converged.
+		// Per pool state is available through a TraceWriter instead of being printed every step.
+		// Every miner has to have decided at least once without any change.
+		int quietSteps = (amountMiners + amountSoloMiners + getDecisionBatch() - 1) / getDecisionBatch();
+		if(!quiescent && (!isConverged || (convergenceDetector == null && checkConvergence < quietSteps))){
 			isConverged = false;
 		}
 
-		setChanged();
-		notifyObservers();
+		if(stateHistory != null && !isConverged){
+			detectCycle();
+		}
+
+		if(traceWriter != null){
+			traceWriter.record(this);
+		}
+
+		if(isConverged && !wasConverged && events.hasSubscribers(SimulationEvent.Converged.class)){
+			events.publish(new SimulationEvent.Converged(time));
+		}
+		wasConverged = isConverged;
+		if(config.getSnapshotInterval() > 0 && (time % config.getSnapshotInterval() == 0 || isFinished())){
+			snapshot = new SimulationSnapshot(this);
+		}
+		if(events.hasSubscribers(SimulationEvent.StepCompleted.class)){
+			events.publish(new SimulationEvent.StepCompleted(time, isConverged, cycleLength));
+		}
+	}
+
+	/**
+	 * @return state after the latest step for which a snapshot was published, safe to read from any thread.
+	 */
+	public SimulationSnapshot getSnapshot(){
+		return snapshot;
+	}
+
+	/**
+	 * @return bus on which step, rate, move and convergence events of this simulation are published.
+	 */
+	public EventBus getEvents(){
+		return events;
 	}
 
 	/**
@@ -215,24 +616,166 @@ public class Simulation extends Observable {
 		if((p.getMembers().size() - p.getOwnInfiltrationRate() + p.getSabotagers().size()) == 0){
 			for(Miner m: p.getMembers()){
 				HonestMiner nm = new HonestMiner(this, m.getId(), ((AttackingMiner)m).getPoolId());
-				pools.get(((AttackingMiner)m).getPoolId()).getMembers().add(nm);
-				pools.get(((AttackingMiner)m).getPoolId()).getSabotagers().remove(m);
-				miners.add(nm);
-				miners.remove(m);
+				pools.get(((AttackingMiner)m).getPoolId()).addMember(nm);
+				pools.get(((AttackingMiner)m).getPoolId()).removeSabotager((AttackingMiner)m);
+				replaceMiner(m, nm);
 			}
 			for(Pool pool: pools){
 				if(!pool.equals(p)){
-					int [] infr = pool.getInfiltrationRates();
-					infr[p.getId()] = 0;
-					pool.setInfiltrationRates(infr);
+					pool.changeInfiltrationRate(p.getId(), -pool.getInfiltrationRates()[p.getId()]);
 				}
 			}
+			if(decisionLog != null && (!p.getMembers().isEmpty() || !p.getSabotagers().isEmpty())){
+				decisionLog.logEmptied(time, p.getId());
+			}
 			p.setOwnInfiltrationRate(0);
 			p.setMembers(new ArrayList<Miner>());
 			p.setSabotagers(new ArrayList<AttackingMiner>());
 		}
 	}
 
+	/**
+	 * Start writing all decisions of this simulation to a log.
+	 * Has to be called before the first time step.
+	 * 
+	 * @param log log to write to.
+	 */
+	public void setDecisionLog(DecisionLog log){
+		if(time != 0){
+			throw new IllegalStateException("Decision log has to be attached before the first step");
+		}
+		if(config.isDirtyScheduling()){
+			throw new IllegalStateException("Decision logs can only be replayed with round robin scheduling");
+		}
+		if(config.getWarmStart() != null){
+			throw new IllegalStateException("Decision logs can only be replayed from the miner distribution, not from a warm start");
+		}
+		this.decisionLog = log;
+		log.writeHeader(this);
+	}
+
+	/**
+	 * Trace the state of all pools after every step.
+	 * 
+	 * @param writer trace to write to, null to stop tracing.
+	 */
+	public void setTraceWriter(TraceWriter writer){
+		this.traceWriter = writer;
+	}
+
+	public DecisionLog getDecisionLog(){
+		return decisionLog;
+	}
+
+	/**
+	 * @return log that decisions are read from, null if decisions are computed.
+	 */
+	DecisionReplay getReplay(){
+		return replay;
+	}
+
+	/**
+	 * Log that a miner joined a pool or became solo miner.
+	 * 
+	 * @param minerId miner that moved.
+	 * @param poolId pool that was joined, -1 for solo mining.
+	 */
+	void recordMove(int minerId, int poolId){
+		// A miner can rejoin its own pool, which changes the order of members but not the hash.
+		lastDecisionChange = time;
+		if(decisionLog != null){
+			decisionLog.logMove(time, minerId, poolId);
+		}
+		if(events.hasSubscribers(SimulationEvent.MinerMoved.class)){
+			events.publish(new SimulationEvent.MinerMoved(time, minerId, poolId));
+		}
+	}
+
+	/**
+	 * Log new infiltration rates chosen by a pool.
+	 * 
+	 * @param p pool that chose the rates.
+	 * @param rates new infiltration rates.
+	 */
+	void recordRates(Pool p, int[] rates){
+		if(decisionLog != null){
+			decisionLog.logRates(time, p.getId(), p.getRevenueDensity(), rates);
+		}
+		if(events.hasSubscribers(SimulationEvent.PoolRatesChanged.class) && !Arrays.equals(rates, p.getInfiltrationRates())){
+			events.publish(new SimulationEvent.PoolRatesChanged(time, p.getId(), rates.clone()));
+		}
+	}
+
+	/**
+	 * Look the current state up in the history of states.
+	 * If it was seen before and anything changed in between, the simulation cycles and will never converge.
+	 * A state that was seen before but has not changed since is a fixed point, which checkConvergence takes care of.
+	 */
+	private void detectCycle(){
+		stateHash.setCursors(currentMinerRoundRobin, currentPoolRoundRobin % pools.size());
+		if(stateHash.getStateHash() != prevStateHash){
+			prevStateHash = stateHash.getStateHash();
+			lastStateChange = time;
+		}
+
+		int seen = stateHistory.putIfAbsent(stateHash.get(), time);
+		if(seen >= 0 && lastStateChange > seen){
+			cycleLength = time - seen;
+		}
+	}
+
+	/**
+	 * @return whether the simulation revisited an earlier state and therefore cycles.
+	 */
+	public boolean isCycleDetected(){
+		return cycleLength > 0;
+	}
+
+	/**
+	 * @return amount of steps of the detected cycle, 0 if there is none.
+	 */
+	public int getCycleLength(){
+		return cycleLength;
+	}
+
+	/**
+	 * @return whether the simulation has converged or will never converge.
+	 */
+	public boolean isFinished(){
+		return isConverged || isCycleDetected();
+	}
+
+	/**
+	 * @param poolId id of a pool.
+	 * @return revenue density of the pool after its contribution fees.
+	 */
+	public double getEffectiveDensity(int poolId){
+		return densityIndex.get(poolId);
+	}
+
+	/**
+	 * @return pool with the highest effective density, the one with the lowest id among equal ones,
+	 * a pool with NaN density only if all are NaN, null if there are no pools.
+	 */
+	Pool getBestPool(){
+		int best = densityIndex.best();
+		return best >= 0 ? pools.get(best) : null;
+	}
+
+	/**
+	 * Recompute the effective density of a pool after its density or fee changed.
+	 * 
+	 * @param poolId id of the pool.
+	 */
+	void updateEffectiveDensity(int poolId){
+		Pool p = pools.get(poolId);
+		densityIndex.update(poolId, p.getRevenueDensity() * (1 - p.getContributionFees()));
+	}
+
+	StateHash getStateHash(){
+		return stateHash;
+	}
+
 	/**
 	 * Check convergence of a simulation by checking whether any miner or any pool 
 	 * has changed its revenue densities from the previous round.
@@ -251,20 +794,81 @@ public class Simulation extends Observable {
 	}
 
 	/**
-	 * Calculates the mining power of a simulation.
+	 * Creates a solver for the revenue density system of this simulation.
+	 * The pure Java solver is used unless native solving is enabled and the system is large.
+	 * 
+	 * @return solver for a system with one row per pool.
+	 */
+	LinearSolver createSolver(){
+		if(useNativeSolver && amountPools >= NATIVE_SOLVER_THRESHOLD){
+			return new JblasSolver(amountPools);
+		}
+		return new LUSolver(amountPools);
+	}
+
+	/**
+	 * Add miner to the simulation.
+	 * 
+	 * @param m new miner.
+	 */
+	void addMiner(Miner m){
+		miners.add(m);
+		stateHash.toggleMiner(m);
+		if(!(m instanceof AttackingMiner)){
+			miningPower++;
+			markMinersDirty();
+		}
+	}
+
+	/**
+	 * Replace miner by a miner with a new role, which takes over the slot of the old one.
+	 * This allocates the replacement, the old object keeps the id but is no longer part of the simulation.
+	 * 
+	 * @param old registered miner.
+	 * @param replacement miner with the same id.
+	 */
+	void replaceMiner(Miner old, Miner replacement){
+		if(!miners.replace(old, replacement)){
+			return;
+		}
+		stateHash.toggleMiner(old);
+		stateHash.toggleMiner(replacement);
+		if(!(old instanceof AttackingMiner)){
+			miningPower--;
+		}
+		if(!(replacement instanceof AttackingMiner)){
+			miningPower++;
+		}
+		if((old instanceof AttackingMiner) != (replacement instanceof AttackingMiner)){
+			markMinersDirty();
+		}
+	}
+
+	/**
+	 * Account for changed infiltration rate of a pool.
+	 * 
+	 * @param delta change of the infiltration rate.
+	 */
+	void changeAttackingPower(int delta){
+		attackingPower += delta;
+	}
+
+	/**
+	 * Mining power of a simulation, maintained whenever miners change role.
 	 * 
 	 * @return amount of mining miners in a simulation.
 	 */
 	public int getMiningPower(){
-		int miningPower = 0;
-		for(Miner m: miners){
-			if(!(m instanceof AttackingMiner)){
-				miningPower ++;
-			}
-		}
 		return miningPower;
 	}
 
+	/**
+	 * @return sum of infiltration rates of all pools.
+	 */
+	public int getAttackingPower(){
+		return attackingPower;
+	}
+
 	public double[] getPoolRevenues() {
 		return poolRevenues;
 	}
@@ -273,12 +877,20 @@ public class Simulation extends Observable {
 		return amountMiners;
 	}
 
-	public ArrayList<Miner> getMiners() {
+	public MinerRegistry getMiners() {
 		return miners;
 	}
 
-	public void setMiners(ArrayList<Miner> a) {
-		this.miners = a;
+	public void setMiners(List<Miner> a) {
+		// Toggle the old miners out of the state hash before the new ones are toggled in by addMiner.
+		for(Miner m: miners){
+			stateHash.toggleMiner(m);
+		}
+		this.miners = new MinerRegistry(a.size());
+		miningPower = 0;
+		for(Miner m: a){
+			addMiner(m);
+		}
 	}
 
 	public int getAmountPools() {
@@ -301,6 +913,39 @@ public class Simulation extends Observable {
 		return revenueForBlock;
 	}
 
+	/**
+	 * @return random generator that drives all draws of this simulation.
+	 */
+	public Random getRandom() {
+		return rand;
+	}
+
+	/**
+	 * Generator for a draw of a miner: its own stream for this step with common random numbers, otherwise the shared one.
+	 * 
+	 * @param minerId miner that draws.
+	 * @param purpose kind of draw, see MinerRandom.
+	 */
+	Random getRandom(int minerId, int purpose) {
+		if(minerRandom == null){
+			return rand;
+		}
+		return minerRandom.reset(config.getSeed(), minerId, time, purpose);
+	}
+
+	/**
+	 * Generator for the restarts of the local search of a pool, its own stream for this step.
+	 * 
+	 * @param poolId pool that searches.
+	 */
+	Random getSearchRandom(int poolId) {
+		return searchRandom.reset(config.getSeed(), poolId, time, MinerRandom.LOCAL_SEARCH);
+	}
+
+	public SimulationConfig getConfig() {
+		return config;
+	}
+
 	public int getAmountSoloMiners() {
 		return amountSoloMiners;
 	}
@@ -0,0 +1,273 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * Parameters that fully describe a simulation run.
+ */
+public class SimulationConfig {
+
+    /**
+     * Amount of pool miners, pools and solo miners at the start.
+     */
+    private int amountMiners;
+    private int amountPools;
+    private int amountSoloMiners;
+    /**
+     * Seed of the random generator that drives all draws of the simulation.
+     */
+    private long seed;
+    /**
+     * Whether jblas may be used to solve large revenue density systems.
+     */
+    private boolean useNativeSolver = false;
+    /**
+     * Amount of state hashes remembered for cycle detection, 0 turns cycle detection off.
+     * Cycles are not detected with local search or decision inertia, both draw random numbers.
+     * The default finds cycles of up to 65536 steps with a history of at most about 2 MB per simulation.
+     */
+    private int cycleHistoryCapacity = 1 << 16;
+    /**
+     * Settings of the tolerant convergence detector, which is only used if enabled.
+     * Otherwise revenue densities have to stay exactly equal for as many steps as there are miners.
+     * When enabled, at least one of convergenceQuietSteps and convergenceWindow has to be positive.
+     */
+    private boolean toleranceConvergence = false;
+    private double convergenceRelativeTolerance = 1e-9;
+    private double convergenceAbsoluteTolerance = 1e-12;
+    private double convergenceHysteresis = 2.0;
+    private int convergenceQuietSteps = 0;
+    private int convergenceWindow = 0;
+    /**
+     * Best responses of pools are searched exhaustively if the radius is 0. Otherwise only infiltration rates
+     * within this L1 distance from the current ones are searched by hill climbing with the given amount of random restarts.
+     */
+    private int localSearchRadius = 0;
+    private int localSearchRestarts = 3;
+    /**
+     * A snapshot of the state is published every this many steps, 0 publishes none (headless runs).
+     */
+    private int snapshotInterval = 0;
+    /**
+     * Whether every miner draws from its own stream keyed by seed, miner id and step (see MinerRandom),
+     * so runs with different parameters but the same seed share their randomness.
+     */
+    private boolean commonRandomNumbers = false;
+    /**
+     * Amount of miners that decide together at every step, 0 for all of them, 1 for one after another.
+     * Miners of a batch choose against the same state before their moves are applied.
+     * A miner that wants to move keeps its role with the probability given by the inertia.
+     */
+    private int decisionBatch = 1;
+    private double decisionInertia = 0;
+    /**
+     * Whether only miners and pools whose decision may have changed are evaluated (see Simulation.decideDirty)
+     * instead of one miner and one pool per step in round robin order.
+     */
+    private boolean dirtyScheduling = false;
+    /**
+     * State of a settled simulation to start from instead of the miner distribution, null to start from the distribution.
+     */
+    private WarmStart warmStart;
+    /**
+     * Pools that pool miners start in.
+     */
+    private MinerDistribution minerDistribution = new RoundRobinDistribution();
+
+    public SimulationConfig(int amountMiners, int amountPools, int amountSoloMiners){
+        this(amountMiners, amountPools, amountSoloMiners, new Random().nextLong());
+    }
+
+    public SimulationConfig(int amountMiners, int amountPools, int amountSoloMiners, long seed){
+        this.amountMiners = amountMiners;
+        this.amountPools = amountPools;
+        this.amountSoloMiners = amountSoloMiners;
+        this.seed = seed;
+    }
+
+    public int getAmountMiners() {
+        return amountMiners;
+    }
+
+    public int getAmountPools() {
+        return amountPools;
+    }
+
+    public int getAmountSoloMiners() {
+        return amountSoloMiners;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public boolean isUseNativeSolver() {
+        return useNativeSolver;
+    }
+
+    public void setUseNativeSolver(boolean useNativeSolver) {
+        this.useNativeSolver = useNativeSolver;
+    }
+
+    public int getCycleHistoryCapacity() {
+        return cycleHistoryCapacity;
+    }
+
+    public void setCycleHistoryCapacity(int cycleHistoryCapacity) {
+        this.cycleHistoryCapacity = cycleHistoryCapacity;
+    }
+
+    public boolean isToleranceConvergence() {
+        return toleranceConvergence;
+    }
+
+    public void setToleranceConvergence(boolean toleranceConvergence) {
+        this.toleranceConvergence = toleranceConvergence;
+    }
+
+    public double getConvergenceRelativeTolerance() {
+        return convergenceRelativeTolerance;
+    }
+
+    public void setConvergenceRelativeTolerance(double convergenceRelativeTolerance) {
+        this.convergenceRelativeTolerance = convergenceRelativeTolerance;
+    }
+
+    public double getConvergenceAbsoluteTolerance() {
+        return convergenceAbsoluteTolerance;
+    }
+
+    public void setConvergenceAbsoluteTolerance(double convergenceAbsoluteTolerance) {
+        this.convergenceAbsoluteTolerance = convergenceAbsoluteTolerance;
+    }
+
+    public double getConvergenceHysteresis() {
+        return convergenceHysteresis;
+    }
+
+    public void setConvergenceHysteresis(double convergenceHysteresis) {
+        this.convergenceHysteresis = convergenceHysteresis;
+    }
+
+    public int getConvergenceQuietSteps() {
+        return convergenceQuietSteps;
+    }
+
+    public void setConvergenceQuietSteps(int convergenceQuietSteps) {
+        this.convergenceQuietSteps = convergenceQuietSteps;
+    }
+
+    public int getConvergenceWindow() {
+        return convergenceWindow;
+    }
+
+    public void setConvergenceWindow(int convergenceWindow) {
+        this.convergenceWindow = convergenceWindow;
+    }
+
+    public int getLocalSearchRadius() {
+        return localSearchRadius;
+    }
+
+    public void setLocalSearchRadius(int localSearchRadius) {
+        this.localSearchRadius = localSearchRadius;
+    }
+
+    public int getLocalSearchRestarts() {
+        return localSearchRestarts;
+    }
+
+    public void setLocalSearchRestarts(int localSearchRestarts) {
+        this.localSearchRestarts = localSearchRestarts;
+    }
+
+    public int getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    public void setSnapshotInterval(int snapshotInterval) {
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    public boolean isCommonRandomNumbers() {
+        return commonRandomNumbers;
+    }
+
+    public void setCommonRandomNumbers(boolean commonRandomNumbers) {
+        this.commonRandomNumbers = commonRandomNumbers;
+    }
+
+    public int getDecisionBatch() {
+        return decisionBatch;
+    }
+
+    public void setDecisionBatch(int decisionBatch) {
+        this.decisionBatch = decisionBatch;
+    }
+
+    public double getDecisionInertia() {
+        return decisionInertia;
+    }
+
+    public void setDecisionInertia(double decisionInertia) {
+        this.decisionInertia = decisionInertia;
+    }
+
+    public boolean isDirtyScheduling() {
+        return dirtyScheduling;
+    }
+
+    public void setDirtyScheduling(boolean dirtyScheduling) {
+        this.dirtyScheduling = dirtyScheduling;
+    }
+
+    public WarmStart getWarmStart() {
+        return warmStart;
+    }
+
+    public void setWarmStart(WarmStart warmStart) {
+        this.warmStart = warmStart;
+    }
+
+    public MinerDistribution getMinerDistribution() {
+        return minerDistribution;
+    }
+
+    public void setMinerDistribution(MinerDistribution minerDistribution) {
+        this.minerDistribution = minerDistribution;
+    }
+
+    /**
+     * @return configuration with the same values, which can be changed independently.
+     */
+    public SimulationConfig copy() {
+        SimulationConfig c = new SimulationConfig(amountMiners, amountPools, amountSoloMiners, seed);
+        c.useNativeSolver = useNativeSolver;
+        c.cycleHistoryCapacity = cycleHistoryCapacity;
+        c.toleranceConvergence = toleranceConvergence;
+        c.convergenceRelativeTolerance = convergenceRelativeTolerance;
+        c.convergenceAbsoluteTolerance = convergenceAbsoluteTolerance;
+        c.convergenceHysteresis = convergenceHysteresis;
+        c.convergenceQuietSteps = convergenceQuietSteps;
+        c.convergenceWindow = convergenceWindow;
+        c.localSearchRadius = localSearchRadius;
+        c.localSearchRestarts = localSearchRestarts;
+        c.snapshotInterval = snapshotInterval;
+        c.commonRandomNumbers = commonRandomNumbers;
+        c.minerDistribution = minerDistribution;
+        c.decisionBatch = decisionBatch;
+        c.decisionInertia = decisionInertia;
+        c.dirtyScheduling = dirtyScheduling;
+        c.warmStart = warmStart;
+        return c;
+    }
+
+    @Override
+    public String toString() {
+        return "miners=" + amountMiners + " pools=" + amountPools + " solo=" + amountSoloMiners + " seed=" + seed;
+    }
+}
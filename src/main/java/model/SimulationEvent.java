@@ -0,0 +1,115 @@
+package model;
+
+/**
+ * Event published by a simulation through its EventBus.
+ */
+public abstract class SimulationEvent {
+
+    /**
+     * Time step at which the event happened.
+     */
+    private final int time;
+
+    SimulationEvent(int time){
+        this.time = time;
+    }
+
+    public int getTime() {
+        return time;
+    }
+
+    /**
+     * A time step is completed.
+     */
+    public static final class StepCompleted extends SimulationEvent {
+
+        private final boolean converged;
+        /**
+         * Length of the detected cycle, 0 if none.
+         */
+        private final int cycleLength;
+
+        StepCompleted(int time, boolean converged, int cycleLength){
+            super(time);
+            this.converged = converged;
+            this.cycleLength = cycleLength;
+        }
+
+        public boolean isConverged() {
+            return converged;
+        }
+
+        public int getCycleLength() {
+            return cycleLength;
+        }
+
+        /**
+         * @return whether the simulation has converged or got stuck in a cycle.
+         */
+        public boolean isFinished() {
+            return converged || cycleLength > 0;
+        }
+    }
+
+    /**
+     * A pool has chosen new infiltration rates.
+     */
+    public static final class PoolRatesChanged extends SimulationEvent {
+
+        private final int poolId;
+        private final int[] rates;
+
+        PoolRatesChanged(int time, int poolId, int[] rates){
+            super(time);
+            this.poolId = poolId;
+            this.rates = rates;
+        }
+
+        public int getPoolId() {
+            return poolId;
+        }
+
+        /**
+         * @return new infiltration rates to all pools, must not be changed.
+         */
+        public int[] getRates() {
+            return rates;
+        }
+    }
+
+    /**
+     * A miner has joined a pool or started to mine solo.
+     */
+    public static final class MinerMoved extends SimulationEvent {
+
+        private final int minerId;
+        /**
+         * New pool, -1 for solo mining.
+         */
+        private final int poolId;
+
+        MinerMoved(int time, int minerId, int poolId){
+            super(time);
+            this.minerId = minerId;
+            this.poolId = poolId;
+        }
+
+        public int getMinerId() {
+            return minerId;
+        }
+
+        public int getPoolId() {
+            return poolId;
+        }
+    }
+
+    /**
+     * The simulation has converged. Published once, before the StepCompleted event of that step.
+     */
+    public static final class Converged extends SimulationEvent {
+
+        Converged(int time){
+            super(time);
+        }
+    }
+}
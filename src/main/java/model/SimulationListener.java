@@ -0,0 +1,9 @@
+package model;
+
+/**
+ * Receives events of one type from an EventBus.
+ */
+public interface SimulationListener<E extends SimulationEvent> {
+
+    void onEvent(E event);
+}
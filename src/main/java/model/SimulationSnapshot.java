@@ -0,0 +1,121 @@
+package model;
+
+/**
+ * Immutable state of all pools after a time step.
+ * Snapshots are published by the simulation through a volatile reference,
+ * so any thread can read a consistent state without locks while the simulation goes on.
+ */
+public final class SimulationSnapshot {
+
+    private final int time;
+    private final boolean converged;
+    private final int cycleLength;
+    private final int amountPools;
+    private final int amountSoloMiners;
+    /**
+     * Values per pool, indexed by pool id.
+     */
+    private final int[] members;
+    private final int[] sabotagers;
+    private final int[] loyalMiners;
+    private final int[] ownInfiltrationRates;
+    private final double[] revenueDensities;
+    private final double[] revenues;
+    private final double[] incomesWholeGame;
+    private final double[] incomesWholeGameNooneAttack;
+    /**
+     * Infiltration rates of all pools, the rate from pool i to pool j is at i * amountPools + j.
+     */
+    private final int[] infiltrationRates;
+
+    /**
+     * Copy the current state of a simulation.
+     */
+    SimulationSnapshot(Simulation sim){
+        this.time = sim.getTime();
+        this.converged = sim.isConverged();
+        this.cycleLength = sim.getCycleLength();
+        this.amountPools = sim.getPools().size();
+        this.amountSoloMiners = sim.getAmountSoloMiners();
+        this.members = new int[amountPools];
+        this.sabotagers = new int[amountPools];
+        this.loyalMiners = new int[amountPools];
+        this.ownInfiltrationRates = new int[amountPools];
+        this.revenueDensities = new double[amountPools];
+        this.revenues = sim.getPoolRevenues().clone();
+        this.incomesWholeGame = new double[amountPools];
+        this.incomesWholeGameNooneAttack = new double[amountPools];
+        this.infiltrationRates = new int[amountPools * amountPools];
+
+        for(Pool p: sim.getPools()){
+            int i = p.getId();
+            members[i] = p.getMembers().size();
+            sabotagers[i] = p.getSabotagers().size();
+            loyalMiners[i] = p.getLoyalMiners();
+            ownInfiltrationRates[i] = p.getOwnInfiltrationRate();
+            revenueDensities[i] = p.getRevenueDensity();
+            incomesWholeGame[i] = p.getIncomeWholeGame();
+            incomesWholeGameNooneAttack[i] = p.getIncomeWholeGameNooneattack();
+            System.arraycopy(p.getInfiltrationRates(), 0, infiltrationRates, i * amountPools, amountPools);
+        }
+    }
+
+    public int getTime() {
+        return time;
+    }
+
+    public boolean isConverged() {
+        return converged;
+    }
+
+    public int getCycleLength() {
+        return cycleLength;
+    }
+
+    public int getAmountPools() {
+        return amountPools;
+    }
+
+    public int getAmountSoloMiners() {
+        return amountSoloMiners;
+    }
+
+    public int getMembers(int poolId) {
+        return members[poolId];
+    }
+
+    public int getSabotagers(int poolId) {
+        return sabotagers[poolId];
+    }
+
+    public int getLoyalMiners(int poolId) {
+        return loyalMiners[poolId];
+    }
+
+    public int getOwnInfiltrationRate(int poolId) {
+        return ownInfiltrationRates[poolId];
+    }
+
+    public double getRevenueDensity(int poolId) {
+        return revenueDensities[poolId];
+    }
+
+    /**
+     * @return revenue per miner of the pool in this step.
+     */
+    public double getRevenue(int poolId) {
+        return revenues[poolId];
+    }
+
+    public double getIncomeWholeGame(int poolId) {
+        return incomesWholeGame[poolId];
+    }
+
+    public double getIncomeWholeGameNooneAttack(int poolId) {
+        return incomesWholeGameNooneAttack[poolId];
+    }
+
+    public int getInfiltrationRate(int fromPool, int toPool) {
+        return infiltrationRates[fromPool * amountPools + toPool];
+    }
+}
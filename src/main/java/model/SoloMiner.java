@@ -42,31 +42,32 @@ public class SoloMiner extends Miner {
 
     /**
      * Joins pool if it is more profitable.
-     * 
-     * @param placeRoundRobin place in the array of miners (in the simulation).
      */
-    public void changePool(int placeRoundRobin){
-        Pool candidatePool = null;
-        double bestDen = getOwnRevDen();
-
-        // Loop through all pools and try to find own with higher revenue density. 
-        for(Pool p: getSim().getPools()){
-            if((p.getRevenueDensity()*(1 - p.getContributionFees())) > bestDen){
-                bestDen = p.getRevenueDensity()*(1 - p.getContributionFees());
-                candidatePool = p;
-            }
+    int choosePool(){
+        // Join the pool with the highest revenue density if it is higher than own.
+        Pool best = getSim().getBestPool();
+        if(best != null && getSim().getEffectiveDensity(best.getId()) > getOwnRevDen()){
+            return best.getId();
         }
+        return STAY;
+    }
 
-        // If such pool exists, become honest miner in that pool.
-        if(candidatePool != null){
-            ArrayList<Miner> newMembers = candidatePool.getMembers();
-            HonestMiner newhm = new HonestMiner(getSim(), getId(), candidatePool.getId());
-            newMembers.add(newhm);
-            candidatePool.setMembers(newMembers);
+    /**
+     * Become honest miner in the given pool.
+     * 
+     * @param candidatePool pool to join.
+     */
+    void joinPool(Pool candidatePool){
+        HonestMiner newhm = new HonestMiner(getSim(), getId(), candidatePool.getId());
+        candidatePool.addMember(newhm);
 
-            getSim().getMiners().remove(this);
-            getSim().getMiners().add(placeRoundRobin, newhm);
-            getSim().setAmountSoloMiners(getSim().getAmountSoloMiners() - 1);
-        }
+        getSim().replaceMiner(this, newhm);
+        getSim().setAmountSoloMiners(getSim().getAmountSoloMiners() - 1);
+        getSim().recordMove(getId(), candidatePool.getId());
     }
+
+    /**
+     * Already mining solo.
+     */
+    void mineSolo(){}
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package model;
+
+/**
+ * Zobrist-style hash of the state that drives all decisions of a simulation:
+ * role and pool of every miner, member, sabotager and infiltration counts of every pool,
+ * the infiltration matrix, revenue densities of all pools and the round robin cursors.
+ * 
+ * Every component contributes a pseudo random key for its current value. When a value changes,
+ * the key of the old value is XORed out and the key of the new value XORed in, so updates take constant time.
+ * Keys are computed by hashing instead of being stored in tables, and components at their zero value contribute nothing.
+ */
+public class StateHash {
+
+    private static final long MINER = 1;
+    private static final long COUNTS = 2;
+    private static final long RATE = 3;
+    private static final long DENSITY = 4;
+    private static final long CURSORS = 5;
+
+    /**
+     * Hash of everything but the cursors, and key of the current cursors.
+     */
+    private long hash = 0;
+    private long cursors = 0;
+
+    /**
+     * Finalizer of the SplitMix64 generator, spreads every input bit over the whole key.
+     */
+    static long mix(long z){
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long key(long component, long a, long b, long c){
+        return mix(mix(mix(component * 0x9e3779b97f4a7c15L + a) + b) + c);
+    }
+
+    /**
+     * XOR the key of a miner in its current role in or out.
+     * 
+     * @param m miner in or leaving its current role.
+     */
+    void toggleMiner(Miner m){
+        if(m instanceof HonestMiner){
+            hash ^= key(MINER, m.getId(), 0, ((HonestMiner) m).getPoolId());
+        } else if(m instanceof AttackingMiner){
+            AttackingMiner am = (AttackingMiner) m;
+            hash ^= key(MINER, m.getId(), 1, ((long) am.getPoolId() << 32) | (am.getAttackedPoolId() & 0xffffffffL));
+        } else {
+            hash ^= key(MINER, m.getId(), 2, 0);
+        }
+    }
+
+    /**
+     * XOR the key of the counts of a pool in or out.
+     */
+    void toggleCounts(int poolId, int members, int sabotagers, int ownInfiltrationRate){
+        if(members == 0 && sabotagers == 0 && ownInfiltrationRate == 0){
+            return;
+        }
+        hash ^= key(COUNTS, poolId, members, ((long) sabotagers << 32) | (ownInfiltrationRate & 0xffffffffL));
+    }
+
+    /**
+     * XOR the key of one entry of the infiltration matrix in or out.
+     */
+    void toggleRate(int fromPool, int toPool, int rate){
+        if(rate == 0){
+            return;
+        }
+        hash ^= key(RATE, fromPool, toPool, rate);
+    }
+
+    /**
+     * XOR the key of the revenue density of a pool in or out.
+     */
+    void toggleDensity(int poolId, double density){
+        long bits = Double.doubleToLongBits(density);
+        if(bits == 0){
+            return;
+        }
+        hash ^= key(DENSITY, poolId, bits, 0);
+    }
+
+    /**
+     * @param minerCursor miner whose turn it is next.
+     * @param poolCursor pool whose turn it is next.
+     */
+    void setCursors(int minerCursor, int poolCursor){
+        cursors = (minerCursor == 0 && poolCursor == 0) ? 0 : key(CURSORS, minerCursor, poolCursor, 0);
+    }
+
+    /**
+     * @return hash of the state without the round robin cursors.
+     */
+    public long getStateHash(){
+        return hash;
+    }
+
+    /**
+     * @return hash of the whole state.
+     */
+    public long get(){
+        return hash ^ cursors;
+    }
+}
@@ -0,0 +1,84 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Compact record of the time steps at which state hashes were seen, in open addressing primitive arrays.
+ * Once the capacity is reached the history starts over, so cycles up to the capacity are still found.
+ */
+public class StateHistory {
+
+    private final int capacity;
+    private long[] hashes;
+    private int[] times;
+    /**
+     * Marks used slots, a hash can be any long.
+     */
+    private boolean[] used;
+    private int size;
+
+    public StateHistory(int capacity){
+        this.capacity = capacity;
+        this.hashes = new long[16];
+        this.times = new int[hashes.length];
+        this.used = new boolean[hashes.length];
+    }
+
+    /**
+     * Record the time a hash was seen at, unless it was seen before.
+     * 
+     * @param hash state hash.
+     * @param time current time step.
+     * @return time step at which the hash was seen first, -1 if it is new.
+     */
+    public int putIfAbsent(long hash, int time){
+        int mask = hashes.length - 1;
+        int i = (int) (hash ^ (hash >>> 32)) & mask;
+        while(used[i]){
+            if(hashes[i] == hash){
+                return times[i];
+            }
+            i = (i + 1) & mask;
+        }
+
+        if(size >= capacity){
+            clear();
+            return putIfAbsent(hash, time);
+        }
+
+        hashes[i] = hash;
+        times[i] = time;
+        used[i] = true;
+        size++;
+
+        // Keep the table at most half full.
+        if(size * 2 > hashes.length){
+            grow();
+        }
+        return -1;
+    }
+
+    private void grow(){
+        long[] oldHashes = hashes;
+        int[] oldTimes = times;
+        boolean[] oldUsed = used;
+        hashes = new long[oldHashes.length * 2];
+        times = new int[hashes.length];
+        used = new boolean[hashes.length];
+        size = 0;
+        for(int i = 0; i < oldHashes.length; i++){
+            if(oldUsed[i]){
+                putIfAbsent(oldHashes[i], oldTimes[i]);
+            }
+        }
+    }
+
+    public void clear(){
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    public int size(){
+        return size;
+    }
+}
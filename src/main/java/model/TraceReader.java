@@ -0,0 +1,155 @@
+package model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads trace files written by TraceWriter through memory mapping.
+ * Every value of every step can be accessed directly, and since values are stored column by column,
+ * scanning one value of one pool over consecutive steps reads consecutive memory.
+ */
+public class TraceReader implements Closeable {
+
+    private final FileChannel channel;
+    private final int amountPools;
+    private final int chunkSteps;
+    private final long chunkBytes;
+    private final int chunksPerSegment;
+    /**
+     * Mapped parts of the file, each holding whole chunks.
+     */
+    private final MappedByteBuffer[] segments;
+    private final int steps;
+
+    private final int timesOffset;
+    private final int revenueOffset;
+    private final int membersOffset;
+    private final int sabotagersOffset;
+    private final int ratesOffset;
+
+    public TraceReader(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, TraceWriter.HEADER_BYTES);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        if(header.getInt() != TraceWriter.MAGIC){
+            throw new IOException("Not a trace file: " + file);
+        }
+        int version = header.getInt();
+        if(version != TraceWriter.VERSION){
+            throw new IOException("Unsupported trace version " + version);
+        }
+        this.amountPools = header.getInt();
+        this.chunkSteps = header.getInt();
+        this.chunkBytes = TraceWriter.chunkBytes(amountPools, chunkSteps);
+
+        long chunks = (channel.size() - TraceWriter.HEADER_BYTES) / chunkBytes;
+        this.chunksPerSegment = (int) Math.max(1, Integer.MAX_VALUE / chunkBytes);
+        this.segments = new MappedByteBuffer[(int) ((chunks + chunksPerSegment - 1) / chunksPerSegment)];
+        for(int s = 0; s < segments.length; s++){
+            long first = (long) s * chunksPerSegment;
+            long count = Math.min(chunksPerSegment, chunks - first);
+            segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, TraceWriter.HEADER_BYTES + first * chunkBytes, count * chunkBytes);
+            segments[s].order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        int lastCount = chunks == 0 ? 0 : chunkBuffer(chunks - 1).getInt(chunkStart(chunks - 1));
+        this.steps = (int) (chunks == 0 ? 0 : (chunks - 1) * chunkSteps + lastCount);
+
+        this.timesOffset = 4;
+        this.revenueOffset = timesOffset + 4 * chunkSteps;
+        this.membersOffset = revenueOffset + 8 * amountPools * chunkSteps;
+        this.sabotagersOffset = membersOffset + 4 * amountPools * chunkSteps;
+        this.ratesOffset = sabotagersOffset + 4 * amountPools * chunkSteps;
+    }
+
+    private MappedByteBuffer chunkBuffer(long chunk){
+        return segments[(int) (chunk / chunksPerSegment)];
+    }
+
+    private int chunkStart(long chunk){
+        return (int) ((chunk % chunksPerSegment) * chunkBytes);
+    }
+
+    /**
+     * @return byte position of an entry of a column within its segment.
+     */
+    private int position(int step, int columnOffset, int column, int width){
+        if(step < 0 || step >= steps){
+            throw new IndexOutOfBoundsException("Step " + step + " of " + steps);
+        }
+        long chunk = step / chunkSteps;
+        int j = step % chunkSteps;
+        return chunkStart(chunk) + columnOffset + width * (column * chunkSteps + j);
+    }
+
+    /**
+     * @return the pool id, IndexOutOfBoundsException if there is no such pool in the trace.
+     */
+    private int checkPool(int poolId){
+        if(poolId < 0 || poolId >= amountPools){
+            throw new IndexOutOfBoundsException("Pool " + poolId + " of " + amountPools);
+        }
+        return poolId;
+    }
+
+    /**
+     * @return amount of traced steps.
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+    public int getAmountPools() {
+        return amountPools;
+    }
+
+    /**
+     * @param step index of the traced step.
+     * @return simulation time of the step.
+     */
+    public int getTime(int step){
+        return chunkBuffer(step / chunkSteps).getInt(position(step, timesOffset, 0, 4));
+    }
+
+    public double getRevenue(int step, int poolId){
+        return chunkBuffer(step / chunkSteps).getDouble(position(step, revenueOffset, checkPool(poolId), 8));
+    }
+
+    public int getMembers(int step, int poolId){
+        return chunkBuffer(step / chunkSteps).getInt(position(step, membersOffset, checkPool(poolId), 4));
+    }
+
+    public int getSabotagers(int step, int poolId){
+        return chunkBuffer(step / chunkSteps).getInt(position(step, sabotagersOffset, checkPool(poolId), 4));
+    }
+
+    public int getInfiltrationRate(int step, int fromPool, int toPool){
+        return chunkBuffer(step / chunkSteps).getInt(position(step, ratesOffset, checkPool(fromPool) * amountPools + checkPool(toPool), 4));
+    }
+
+    /**
+     * Copy the revenues of a pool over a range of steps.
+     * 
+     * @param poolId pool to read.
+     * @param from first step.
+     * @param to step after the last one.
+     * @return revenues of the pool for every step in the range.
+     */
+    public double[] getRevenues(int poolId, int from, int to){
+        double[] result = new double[to - from];
+        for(int step = from; step < to; step++){
+            result[step - from] = getRevenue(step, poolId);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
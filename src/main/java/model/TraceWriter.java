@@ -0,0 +1,260 @@
+package model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes a per-step trace of all pools (revenue, members, sabotagers, infiltration rates) to a binary file.
+ * 
+ * The simulation thread only copies the values of a step into a preallocated slot of a bounded
+ * single producer single consumer ring buffer. A background thread takes the slots and writes them to disk.
+ * When the ring buffer is full, the simulation thread waits for the writer.
+ * 
+ * File layout (little endian), see TraceReader:
+ * header: magic, version, amount of pools, steps per chunk.
+ * chunks of fixed size, each with the amount of steps it holds followed by one column per value:
+ * time[K], revenue[pool][K], members[pool][K], sabotagers[pool][K], infiltration rate[from * pools + to][K].
+ */
+public class TraceWriter implements Closeable {
+
+    static final int MAGIC = 0x504d5452;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    private final int amountPools;
+    /**
+     * Steps per chunk.
+     */
+    private final int chunkSteps;
+    private final FileChannel channel;
+
+    /**
+     * Ring buffer slots, one entry (or row of entries) per slot.
+     */
+    private final int capacity;
+    private final int mask;
+    private final int[] slotTimes;
+    private final double[] slotRevenues;
+    private final int[] slotMembers;
+    private final int[] slotSabotagers;
+    private final int[] slotRates;
+    /**
+     * Next slot to read (written by the writer thread) and next slot to fill (written by the simulation thread).
+     */
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Chunk currently being filled by the writer thread.
+     */
+    private final ByteBuffer chunk;
+    private int stepsInChunk = 0;
+    private long chunksWritten = 0;
+
+    private final Thread writer;
+    private volatile boolean closing = false;
+    private volatile IOException failure;
+
+    /**
+     * @param file file to write to, an existing file is overwritten.
+     * @param amountPools amount of pools of the traced simulation.
+     * @param capacity amount of steps that can be queued, rounded up to a power of two.
+     * @param chunkSteps amount of steps per chunk of the file, a chunk has to fit into one buffer (at most 2 GB).
+     */
+    public TraceWriter(File file, int amountPools, int capacity, int chunkSteps) throws IOException {
+        if(chunkSteps < 1 || chunkBytes(amountPools, chunkSteps) > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("Chunk of " + chunkSteps + " steps with " + amountPools + " pools does not fit into "
+                    + Integer.MAX_VALUE + " bytes, at most " + maxChunkSteps(amountPools) + " steps per chunk are possible");
+        }
+        this.amountPools = amountPools;
+        this.chunkSteps = chunkSteps;
+        this.capacity = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1);
+        this.mask = this.capacity - 1;
+        this.slotTimes = new int[this.capacity];
+        this.slotRevenues = new double[this.capacity * amountPools];
+        this.slotMembers = new int[this.capacity * amountPools];
+        this.slotSabotagers = new int[this.capacity * amountPools];
+        this.slotRates = new int[this.capacity * amountPools * amountPools];
+
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(amountPools).putInt(chunkSteps).flip();
+        while(header.hasRemaining()){
+            channel.write(header);
+        }
+
+        this.chunk = ByteBuffer.allocateDirect((int) chunkBytes(amountPools, chunkSteps)).order(ByteOrder.LITTLE_ENDIAN);
+
+        this.writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, "trace-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public TraceWriter(File file, int amountPools) throws IOException {
+        this(file, amountPools, 1024, 4096);
+    }
+
+    /**
+     * @return size of one chunk in bytes.
+     */
+    static long chunkBytes(int amountPools, int chunkSteps){
+        return 4L + 4L * chunkSteps + 8L * amountPools * chunkSteps + 4L * amountPools * chunkSteps * 2
+                + 4L * amountPools * amountPools * chunkSteps;
+    }
+
+    /**
+     * @return largest amount of steps per chunk whose chunk fits into one buffer.
+     */
+    static int maxChunkSteps(int amountPools){
+        return (int) ((Integer.MAX_VALUE - 4L) / (chunkBytes(amountPools, 1) - 4L));
+    }
+
+    /**
+     * Queue the state of all pools after a step. Called from the simulation thread.
+     * 
+     * @param sim simulation after the step.
+     * @throws IllegalStateException if the trace is closed.
+     */
+    public void record(Simulation sim){
+        if(closing){
+            throw new IllegalStateException("Trace is closed");
+        }
+        if(failure != null){
+            throw new UncheckedIOException(failure);
+        }
+
+        long t = tail.get();
+        while(t - head.get() >= capacity){
+            LockSupport.unpark(writer);
+            Thread.yield();
+            if(failure != null){
+                throw new UncheckedIOException(failure);
+            }
+        }
+
+        int slot = (int) (t & mask);
+        slotTimes[slot] = sim.getTime();
+        double[] revenues = sim.getPoolRevenues();
+        int base = slot * amountPools;
+        for(Pool p: sim.getPools()){
+            int i = base + p.getId();
+            slotRevenues[i] = revenues[p.getId()];
+            slotMembers[i] = p.getMembers().size();
+            slotSabotagers[i] = p.getSabotagers().size();
+            System.arraycopy(p.getInfiltrationRates(), 0, slotRates, (base + p.getId()) * amountPools, amountPools);
+        }
+        tail.lazySet(t + 1);
+        LockSupport.unpark(writer);
+    }
+
+    /**
+     * Writer thread: move queued steps into chunks until closed and everything is written.
+     */
+    private void drain(){
+        try {
+            while(true){
+                long h = head.get();
+                long t = tail.get();
+                if(h == t){
+                    if(closing && tail.get() == h){
+                        break;
+                    }
+                    LockSupport.parkNanos(1000000);
+                    continue;
+                }
+
+                for(; h < t; h++){
+                    appendToChunk((int) (h & mask));
+                    head.lazySet(h + 1);
+                }
+            }
+            if(stepsInChunk > 0){
+                writeChunk();
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                if(failure == null){
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    private void appendToChunk(int slot) throws IOException {
+        int k = chunkSteps;
+        int j = stepsInChunk;
+        int base = slot * amountPools;
+
+        int timesOffset = 4;
+        int revenueOffset = timesOffset + 4 * k;
+        int membersOffset = revenueOffset + 8 * amountPools * k;
+        int sabotagersOffset = membersOffset + 4 * amountPools * k;
+        int ratesOffset = sabotagersOffset + 4 * amountPools * k;
+
+        chunk.putInt(timesOffset + 4 * j, slotTimes[slot]);
+        for(int p = 0; p < amountPools; p++){
+            chunk.putDouble(revenueOffset + 8 * (p * k + j), slotRevenues[base + p]);
+            chunk.putInt(membersOffset + 4 * (p * k + j), slotMembers[base + p]);
+            chunk.putInt(sabotagersOffset + 4 * (p * k + j), slotSabotagers[base + p]);
+            for(int q = 0; q < amountPools; q++){
+                chunk.putInt(ratesOffset + 4 * ((p * amountPools + q) * k + j), slotRates[(base + p) * amountPools + q]);
+            }
+        }
+
+        stepsInChunk++;
+        if(stepsInChunk == chunkSteps){
+            writeChunk();
+        }
+    }
+
+    /**
+     * Write the current chunk at its place in the file. A partial last chunk is written with its full size.
+     */
+    private void writeChunk() throws IOException {
+        chunk.putInt(0, stepsInChunk);
+        chunk.clear();
+        long position = HEADER_BYTES + chunksWritten * chunk.capacity();
+        while(chunk.hasRemaining()){
+            position += channel.write(chunk, position);
+        }
+        chunk.clear();
+        chunksWritten++;
+        stepsInChunk = 0;
+    }
+
+    /**
+     * Write all queued steps and close the file.
+     */
+    @Override
+    public void close() throws IOException {
+        closing = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while closing trace", e);
+        }
+        if(failure != null){
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * State of a settled simulation that another simulation with similar parameters starts from,
+ * so that a sweep continues from the equilibrium of the previous grid point instead of starting over.
+ * Keeps the loyal miners and infiltration rates of every pool. Sizes are scaled to the new amount of miners,
+ * pools beyond the old ones get the average size, and rates scale with the size of their pool.
+ * Revenue densities are computed from the new state, since the old ones belong to a different population.
+ */
+public class WarmStart {
+
+    private final int[] loyalMiners;
+    private final int[][] infiltrationRates;
+
+    public WarmStart(int[] loyalMiners, int[][] infiltrationRates){
+        this.loyalMiners = loyalMiners.clone();
+        this.infiltrationRates = new int[infiltrationRates.length][];
+        for(int i = 0; i < infiltrationRates.length; i++){
+            this.infiltrationRates[i] = infiltrationRates[i].clone();
+        }
+    }
+
+    /**
+     * @param sim simulation to continue from, usually converged.
+     * @return state of all pools of the simulation.
+     */
+    public static WarmStart of(Simulation sim){
+        int[] loyal = new int[sim.getAmountPools()];
+        int[][] rates = new int[sim.getAmountPools()][];
+        for(Pool p: sim.getPools()){
+            loyal[p.getId()] = p.getLoyalMiners();
+            rates[p.getId()] = p.getInfiltrationRates();
+        }
+        return new WarmStart(loyal, rates);
+    }
+
+    /**
+     * Apportion miners to pools in proportion to the old loyal miners, largest remainders first.
+     * 
+     * @param amountMiners amount of pool miners of the new simulation.
+     * @param amountPools amount of pools of the new simulation.
+     * @return amount of miners that start in every pool.
+     */
+    int[] poolSizes(int amountMiners, int amountPools){
+        double total = 0;
+        for(int loyal: loyalMiners){
+            total += loyal;
+        }
+        double average = loyalMiners.length > 0 ? total / loyalMiners.length : 0;
+
+        double[] weights = new double[amountPools];
+        double sum = 0;
+        for(int i = 0; i < amountPools; i++){
+            weights[i] = i < loyalMiners.length ? loyalMiners[i] : average;
+            sum += weights[i];
+        }
+        if(sum == 0){
+            Arrays.fill(weights, 1);
+            sum = amountPools;
+        }
+
+        int[] sizes = new int[amountPools];
+        double[] remainders = new double[amountPools];
+        int left = amountMiners;
+        for(int i = 0; i < amountPools; i++){
+            double exact = amountMiners * weights[i] / sum;
+            sizes[i] = (int) exact;
+            remainders[i] = exact - sizes[i];
+            left -= sizes[i];
+        }
+        while(left > 0){
+            int best = 0;
+            for(int i = 1; i < amountPools; i++){
+                if(remainders[i] > remainders[best]){
+                    best = i;
+                }
+            }
+            sizes[best]++;
+            remainders[best] = -1;
+            left--;
+        }
+        return sizes;
+    }
+
+    /**
+     * Scale the old rates of a pool to its new size, at most as many sabotagers as it has miners.
+     * 
+     * @param poolId pool of the new simulation.
+     * @param sizes amount of miners in every pool of the new simulation, see poolSizes.
+     * @return infiltration rates of the pool to every pool of the new simulation.
+     */
+    int[] rates(int poolId, int[] sizes){
+        int[] rates = new int[sizes.length];
+        if(poolId >= loyalMiners.length || loyalMiners[poolId] == 0){
+            return rates;
+        }
+
+        double scale = (double) sizes[poolId] / loyalMiners[poolId];
+        int sum = 0;
+        for(int i = 0; i < rates.length && i < infiltrationRates[poolId].length; i++){
+            if(i != poolId){
+                rates[i] = (int) Math.round(infiltrationRates[poolId][i] * scale);
+                sum += rates[i];
+            }
+        }
+        while(sum > sizes[poolId]){
+            int largest = 0;
+            for(int i = 1; i < rates.length; i++){
+                if(rates[i] > rates[largest]){
+                    largest = i;
+                }
+            }
+            rates[largest]--;
+            sum--;
+        }
+        return rates;
+    }
+
+    public int[] getLoyalMiners(){
+        return loyalMiners.clone();
+    }
+
+    public int[][] getInfiltrationRates(){
+        int[][] rates = new int[infiltrationRates.length][];
+        for(int i = 0; i < rates.length; i++){
+            rates[i] = infiltrationRates[i].clone();
+        }
+        return rates;
+    }
+}
@@ -0,0 +1,293 @@
+package runner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayDeque;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import model.SimulationConfig;
+
+/**
+ * Small HTTP service on localhost that runs submitted simulations in this JVM.
+ * 
+ * Jobs are run by a fixed amount of threads with a bounded queue in front of them. A job that does not fit
+ * in the queue is rejected with 503 and a Retry-After header, so the client can submit it again later.
+ * 
+ * POST /jobs with parameters miners, pools, solo, seed, max-steps and the convergence and search options of SweepMain
+ *      (in the query or as form body): 202 with the id of the job, 400 if a parameter is invalid or out of range
+ *      (at most MAX_MINERS miners and solo miners, MAX_POOLS pools and MAX_STEPS steps).
+ * GET /jobs/{id}: state, time and convergence of the job.
+ * GET /jobs/{id}/result: result as a CSV line (like SweepMain), 409 if the job is not done yet.
+ * 
+ * With --cache the service takes results of earlier runs from a ResultCache.
+ * Only the last --retain finished jobs (default 1000) are kept, older ones are forgotten and answer 404.
+ * 
+ * Example: java -cp simulation_pool_mining.jar runner.JobService --port 8080 --threads 4 --queue 64 --retain 1000 --cache results
+ */
+public class JobService {
+
+    private static final int RETRY_AFTER_SECONDS = 5;
+    private static final int DEFAULT_RETAINED_JOBS = 1000;
+    /**
+     * Limits of submitted jobs, larger jobs would exhaust the memory or the threads of the service.
+     */
+    static final int MAX_MINERS = 1000000;
+    static final int MAX_POOLS = 64;
+    static final int MAX_STEPS = 10000000;
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor executor;
+    private final Map<Integer, SimulationJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    /**
+     * Finished jobs in the order they finished, the oldest are evicted from jobs once there are more than retainedJobs.
+     */
+    private final ArrayDeque<SimulationJob> finished = new ArrayDeque<>();
+    private int retainedJobs = DEFAULT_RETAINED_JOBS;
+    /**
+     * Results of earlier runs, null if every job is simulated.
+     */
+    private ResultCache cache;
+
+    /**
+     * @param port port to listen on (on the loopback address only), 0 for any free port.
+     * @param threads amount of jobs that run at the same time.
+     * @param queueCapacity amount of jobs that can wait for a thread.
+     */
+    public JobService(int port, int threads, int queueCapacity) throws IOException {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.createContext("/jobs", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    handleJobs(exchange);
+                } catch (RuntimeException e) {
+                    send(exchange, 400, e.toString());
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+    }
+
+    public void start(){
+        server.start();
+    }
+
+    public int getPort(){
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Queue a job.
+     * 
+     * @return the queued job, null if the queue is full.
+     */
+    public SimulationJob submit(SimulationConfig config, int maxSteps){
+        final SimulationJob job = new SimulationJob(nextId.getAndIncrement(), config, maxSteps, cache);
+        // Register first, a fast job may finish (and be looked up) before execute returns.
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        job.run();
+                    } finally {
+                        finish(job);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            return null;
+        }
+        return job;
+    }
+
+    /**
+     * Remember a finished job and forget the oldest finished jobs beyond the retention limit.
+     */
+    private synchronized void finish(SimulationJob job){
+        finished.addLast(job);
+        while(finished.size() > retainedJobs){
+            jobs.remove(finished.removeFirst().getId());
+        }
+    }
+
+    /**
+     * @param retainedJobs amount of finished jobs that can still be queried.
+     */
+    public synchronized void setRetainedJobs(int retainedJobs) {
+        if(retainedJobs < 0){
+            throw new IllegalArgumentException("Negative amount of retained jobs: " + retainedJobs);
+        }
+        this.retainedJobs = retainedJobs;
+    }
+
+    public void setCache(ResultCache cache) {
+        this.cache = cache;
+    }
+
+    public SimulationJob getJob(int id){
+        return jobs.get(id);
+    }
+
+    /**
+     * Stop accepting requests and jobs, queued and running jobs are finished first.
+     */
+    public void stop(){
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private void handleJobs(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().split("/");
+
+        // path is "", "jobs", id, ...
+        if(path.length == 2 && method.equals("POST")){
+            Map<String, String> params = parseParameters(exchange.getRequestURI().getRawQuery());
+            params.putAll(parseParameters(readBody(exchange.getRequestBody())));
+            handleSubmit(exchange, params);
+            return;
+        }
+
+        if(path.length < 3 || path.length > 4 || !method.equals("GET")){
+            send(exchange, 404, "Not found");
+            return;
+        }
+
+        SimulationJob job = jobs.get(Integer.parseInt(path[2]));
+        if(job == null){
+            send(exchange, 404, "No job " + path[2]);
+        } else if(path.length == 3){
+            send(exchange, 200, status(job));
+        } else if(path[3].equals("result")){
+            if(job.getState() == SimulationJob.State.DONE){
+                send(exchange, 200, job.getResult().toCsv());
+            } else {
+                send(exchange, 409, status(job));
+            }
+        } else {
+            send(exchange, 404, "Not found");
+        }
+    }
+
+    private void handleSubmit(HttpExchange exchange, Map<String, String> params) throws IOException {
+        SimulationConfig config = new SimulationConfig(
+                intParameter(params, "miners", "10", 1, MAX_MINERS),
+                intParameter(params, "pools", "2", 1, MAX_POOLS),
+                intParameter(params, "solo", "0", 0, MAX_MINERS),
+                Long.parseLong(SweepMain.option(params, "seed", Long.toString(System.nanoTime()))));
+        SweepMain.applyConvergenceOptions(config, params);
+        SweepMain.applySearchOptions(config, params);
+
+        SimulationJob job = submit(config, intParameter(params, "max-steps", "100000", 1, MAX_STEPS));
+        if(job == null){
+            exchange.getResponseHeaders().set("Retry-After", Integer.toString(RETRY_AFTER_SECONDS));
+            send(exchange, 503, "Queue is full");
+            return;
+        }
+        exchange.getResponseHeaders().set("Location", "/jobs/" + job.getId());
+        send(exchange, 202, Integer.toString(job.getId()));
+    }
+
+    /**
+     * @return value of an integer parameter, IllegalArgumentException (answered with 400) if it is outside of [min, max].
+     */
+    private static int intParameter(Map<String, String> params, String name, String defaultValue, int min, int max){
+        int value = Integer.parseInt(SweepMain.option(params, name, defaultValue));
+        if(value < min || value > max){
+            throw new IllegalArgumentException(name + " has to be between " + min + " and " + max + ", not " + value);
+        }
+        return value;
+    }
+
+    /**
+     * @return state of a job as lines of key=value.
+     */
+    private static String status(SimulationJob job){
+        StringBuilder sb = new StringBuilder();
+        sb.append("id=").append(job.getId()).append('\n')
+          .append("state=").append(job.getState()).append('\n')
+          .append("time=").append(job.getTime()).append('\n')
+          .append("maxSteps=").append(job.getMaxSteps()).append('\n')
+          .append("converged=").append(job.isConverged()).append('\n');
+        if(job.getError() != null){
+            sb.append("error=").append(job.getError()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void send(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] bytes = (body.endsWith("\n") ? body : body + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(bytes);
+        out.close();
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while((n = in.read(buffer)) > 0){
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param encoded parameters as name=value pairs separated by &amp;, may be null.
+     */
+    private static Map<String, String> parseParameters(String encoded) throws UnsupportedEncodingException {
+        Map<String, String> params = new HashMap<>();
+        if(encoded == null || encoded.trim().isEmpty()){
+            return params;
+        }
+        for(String pair: encoded.trim().split("&")){
+            int eq = pair.indexOf('=');
+            if(eq > 0){
+                params.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"), URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+            }
+        }
+        return params;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for(int i = 0; i + 1 < args.length; i += 2){
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+
+        JobService service = new JobService(Integer.parseInt(SweepMain.option(options, "port", "8080")),
+                Integer.parseInt(SweepMain.option(options, "threads", Integer.toString(Runtime.getRuntime().availableProcessors()))),
+                Integer.parseInt(SweepMain.option(options, "queue", "64")));
+        service.setCache(SweepMain.createCache(options));
+        service.setRetainedJobs(Integer.parseInt(SweepMain.option(options, "retain", Integer.toString(DEFAULT_RETAINED_JOBS))));
+        service.start();
+        System.err.println("Job service listening on http://127.0.0.1:" + service.getPort() + "/jobs");
+    }
+}
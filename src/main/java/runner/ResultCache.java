@@ -0,0 +1,184 @@
+package runner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import model.SimulationConfig;
+
+/**
+ * Results of finished runs on disk, so identical runs need not be simulated again.
+ * 
+ * A result is stored in its own file, named by a hash of the code version, the full configuration
+ * (including the seed) and the step limit. The content is the binary result of the sweep protocol.
+ * When the files take more than the maximum size, the least recently used ones are removed.
+ * Several processes may share a directory: files are written under a temporary name and then renamed.
+ */
+public class ResultCache {
+
+    private static final int FORMAT = 1;
+    private static final String SUFFIX = ".run";
+
+    /**
+     * Hash of the classes that produce results, computed once per JVM.
+     */
+    private static String codeVersion;
+
+    private final File directory;
+    private final long maxBytes;
+
+    /**
+     * @param directory directory of the cache, created if missing.
+     * @param maxBytes maximum total size of cached results.
+     */
+    public ResultCache(File directory, long maxBytes) throws IOException {
+        if(!directory.isDirectory() && !directory.mkdirs()){
+            throw new IOException("Cannot create cache directory " + directory);
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return cached result of a run, null if there is none.
+     */
+    public synchronized RunResult get(SimulationConfig config, int maxSteps){
+        File file = file(config, maxSteps);
+        if(!file.isFile()){
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if(in.readInt() != FORMAT){
+                return null;
+            }
+            RunResult result = SweepProtocol.readResult(in, config);
+            file.setLastModified(System.currentTimeMillis());
+            return result;
+        } catch (IOException e) {
+            // Removed by another process or cut off, simulate again.
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Store the result of a run and evict old results if the cache is too large.
+     */
+    public synchronized void put(RunResult result, int maxSteps){
+        File file = file(result.getConfig(), maxSteps);
+        try {
+            File tmp = File.createTempFile("result", ".tmp", directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(FORMAT);
+                SweepProtocol.writeResult(out, result);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        evict();
+    }
+
+    /**
+     * Remove least recently used results until the cache fits its maximum size.
+     */
+    private void evict(){
+        File[] files = directory.listFiles();
+        if(files == null){
+            return;
+        }
+        long total = 0;
+        for(File f: files){
+            total += f.length();
+        }
+        if(total <= maxBytes){
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+        for(File f: files){
+            if(total <= maxBytes){
+                break;
+            }
+            if(f.getName().endsWith(SUFFIX)){
+                long length = f.length();
+                if(f.delete()){
+                    total -= length;
+                }
+            }
+        }
+    }
+
+    private File file(SimulationConfig config, int maxSteps){
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(codeVersion());
+            SweepProtocol.writeConfig(out, config);
+            out.writeInt(maxSteps);
+            out.flush();
+            return new File(directory, DigestUtils.sha256Hex(bytes.toByteArray()) + SUFFIX);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return hash of the jar or class directory this class was loaded from.
+     */
+    static synchronized String codeVersion() throws IOException {
+        if(codeVersion == null){
+            File source;
+            try {
+                source = new File(ResultCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+            MessageDigest digest = DigestUtils.getSha256Digest();
+            hashFiles(source, "", digest);
+            codeVersion = Hex.encodeHexString(digest.digest());
+        }
+        return codeVersion;
+    }
+
+    /**
+     * Hash names and content of a file, or of all class files in a directory in order of their names.
+     */
+    private static void hashFiles(File file, String name, MessageDigest digest) throws IOException {
+        if(file.isDirectory()){
+            File[] children = file.listFiles();
+            if(children != null){
+                Arrays.sort(children);
+                for(File child: children){
+                    hashFiles(child, name + "/" + child.getName(), digest);
+                }
+            }
+        } else if(file.isFile() && (name.isEmpty() || name.endsWith(".class"))){
+            digest.update(name.getBytes("UTF-8"));
+            try (FileInputStream in = new FileInputStream(file)) {
+                DigestUtils.updateDigest(digest, in);
+            }
+        }
+    }
+}
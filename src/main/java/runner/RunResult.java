@@ -0,0 +1,105 @@
+package runner;
+
+import model.Pool;
+import model.Simulation;
+import model.SimulationConfig;
+
+/**
+ * Compact outcome of a finished (or aborted) simulation run.
+ */
+public class RunResult {
+
+    private final SimulationConfig config;
+    /**
+     * Time step at which the run stopped and whether it has converged by then.
+     */
+    private final int time;
+    private final boolean converged;
+    /**
+     * Length of the cycle the run got stuck in, 0 if none was detected.
+     */
+    private final int cycleLength;
+    /**
+     * Final amount of loyal miners and income for the whole game of every pool.
+     */
+    private final int[] poolSizes;
+    private final double[] poolIncomes;
+    private final double[] poolIncomesNooneAttack;
+
+    public RunResult(SimulationConfig config, int time, boolean converged, int cycleLength, int[] poolSizes, double[] poolIncomes, double[] poolIncomesNooneAttack){
+        this.config = config;
+        this.time = time;
+        this.converged = converged;
+        this.cycleLength = cycleLength;
+        this.poolSizes = poolSizes;
+        this.poolIncomes = poolIncomes;
+        this.poolIncomesNooneAttack = poolIncomesNooneAttack;
+    }
+
+    /**
+     * Take the current state of a simulation.
+     * 
+     * @param sim simulation that has stopped.
+     * @return result with final pool sizes and incomes.
+     */
+    public static RunResult of(Simulation sim){
+        int amountPools = sim.getPools().size();
+        int[] sizes = new int[amountPools];
+        double[] incomes = new double[amountPools];
+        double[] incomesNooneAttack = new double[amountPools];
+
+        for(Pool p: sim.getPools()){
+            sizes[p.getId()] = p.getLoyalMiners();
+            incomes[p.getId()] = p.getIncomeWholeGame();
+            incomesNooneAttack[p.getId()] = p.getIncomeWholeGameNooneattack();
+        }
+
+        return new RunResult(sim.getConfig(), sim.getTime(), sim.isConverged(), sim.getCycleLength(), sizes, incomes, incomesNooneAttack);
+    }
+
+    public SimulationConfig getConfig() {
+        return config;
+    }
+
+    public int getTime() {
+        return time;
+    }
+
+    public boolean isConverged() {
+        return converged;
+    }
+
+    public int getCycleLength() {
+        return cycleLength;
+    }
+
+    public int[] getPoolSizes() {
+        return poolSizes;
+    }
+
+    public double[] getPoolIncomes() {
+        return poolIncomes;
+    }
+
+    public double[] getPoolIncomesNooneAttack() {
+        return poolIncomesNooneAttack;
+    }
+
+    /**
+     * @return one line with configuration, convergence time, cycle length and pool sizes separated by commas.
+     */
+    public String toCsv() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(config.getAmountMiners()).append(',')
+          .append(config.getAmountPools()).append(',')
+          .append(config.getAmountSoloMiners()).append(',')
+          .append(config.getSeed()).append(',')
+          .append(time).append(',')
+          .append(converged).append(',')
+          .append(cycleLength);
+        for(int size: poolSizes){
+            sb.append(',').append(size);
+        }
+        return sb.toString();
+    }
+}
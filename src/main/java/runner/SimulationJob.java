@@ -0,0 +1,109 @@
+package runner;
+
+import model.Simulation;
+import model.SimulationConfig;
+
+/**
+ * Simulation run submitted to the JobService. Progress can be read from any thread while it runs.
+ */
+public class SimulationJob implements Runnable {
+
+    public enum State { QUEUED, RUNNING, DONE, FAILED }
+
+    private final int id;
+    private final SimulationConfig config;
+    private final int maxSteps;
+
+    private volatile State state = State.QUEUED;
+    /**
+     * Time and convergence of the simulation after its last step.
+     */
+    private volatile int time = 0;
+    private volatile boolean converged = false;
+    private volatile RunResult result;
+    private volatile String error;
+    /**
+     * Results of earlier runs, null if the job is always simulated.
+     */
+    private final ResultCache cache;
+
+    public SimulationJob(int id, SimulationConfig config, int maxSteps, ResultCache cache){
+        this.id = id;
+        this.config = config;
+        this.maxSteps = maxSteps;
+        this.cache = cache;
+    }
+
+    /**
+     * Run the simulation until it converges, a cycle is detected or the step limit is reached.
+     */
+    @Override
+    public void run() {
+        state = State.RUNNING;
+        try {
+            RunResult cached = cache != null ? cache.get(config, maxSteps) : null;
+            if(cached != null){
+                time = cached.getTime();
+                converged = cached.isConverged();
+                result = cached;
+                state = State.DONE;
+                return;
+            }
+
+            Simulation sim = new Simulation(config);
+            while(!sim.isFinished() && sim.getTime() < maxSteps){
+                sim.timeStep();
+                time = sim.getTime();
+                converged = sim.isConverged();
+            }
+            result = RunResult.of(sim);
+            if(cache != null){
+                cache.put(result, maxSteps);
+            }
+            state = State.DONE;
+        } catch (Throwable e) {
+            // Also errors such as OutOfMemoryError, otherwise the job would stay RUNNING forever.
+            e.printStackTrace(System.err);
+            error = e.toString();
+            state = State.FAILED;
+        }
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public SimulationConfig getConfig() {
+        return config;
+    }
+
+    public int getMaxSteps() {
+        return maxSteps;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getTime() {
+        return time;
+    }
+
+    public boolean isConverged() {
+        return converged;
+    }
+
+    /**
+     * @return outcome of the run, null until it is done.
+     */
+    public RunResult getResult() {
+        return result;
+    }
+
+    /**
+     * @return description of the failure, null unless the run failed.
+     */
+    public String getError() {
+        return error;
+    }
+}
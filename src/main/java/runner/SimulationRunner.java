@@ -0,0 +1,116 @@
+package runner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import model.Ensemble;
+import model.Simulation;
+import model.SimulationConfig;
+import model.WarmStart;
+
+/**
+ * Runs simulations without any user interface.
+ */
+public class SimulationRunner {
+
+    private SimulationRunner(){}
+
+    /**
+     * Run a simulation until it converges, a cycle is detected or the step limit is reached.
+     * 
+     * @param config parameters of the simulation.
+     * @param maxSteps maximum amount of time steps.
+     * @return outcome of the run.
+     */
+    public static RunResult run(SimulationConfig config, int maxSteps){
+        Simulation sim = new Simulation(config);
+        while(!sim.isFinished() && sim.getTime() < maxSteps){
+            sim.timeStep();
+        }
+        return RunResult.of(sim);
+    }
+
+    /**
+     * Take the result from the cache, or run the simulation and add its result to the cache.
+     * 
+     * @param cache result cache, null to always run.
+     */
+    public static RunResult run(SimulationConfig config, int maxSteps, ResultCache cache){
+        RunResult result = cache != null ? cache.get(config, maxSteps) : null;
+        if(result == null){
+            result = run(config, maxSteps);
+            if(cache != null){
+                cache.put(result, maxSteps);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Run neighbouring configurations one after another, each starting from the state the previous one ended in.
+     * The first configuration starts from its own warm start or miner distribution.
+     * 
+     * @param chain configurations in the order of the sweep, their warm starts are replaced.
+     * @param maxSteps maximum amount of time steps of each run.
+     * @return outcomes of all runs, in the order of the chain.
+     */
+    public static List<RunResult> runChain(List<SimulationConfig> chain, int maxSteps){
+        List<RunResult> results = new ArrayList<>(chain.size());
+        Simulation previous = null;
+        for(SimulationConfig config: chain){
+            if(previous != null){
+                config.setWarmStart(WarmStart.of(previous));
+            }
+            Simulation sim = new Simulation(config);
+            while(!sim.isFinished() && sim.getTime() < maxSteps){
+                sim.timeStep();
+            }
+            results.add(RunResult.of(sim));
+            previous = sim;
+        }
+        return results;
+    }
+
+    /**
+     * Run replicas of a configuration with consecutive seeds as one batch on the calling thread.
+     * 
+     * @param config parameters of the first replica.
+     * @param replicas amount of replicas.
+     * @param maxSteps maximum amount of time steps of each replica.
+     * @return outcomes of all replicas, ordered by seed.
+     */
+    public static List<RunResult> runReplicas(SimulationConfig config, int replicas, int maxSteps){
+        return runReplicas(config, replicas, maxSteps, null);
+    }
+
+    /**
+     * Run replicas as one batch, except those whose result is cached.
+     * 
+     * @param cache result cache, null to always run.
+     */
+    public static List<RunResult> runReplicas(SimulationConfig config, int replicas, int maxSteps, ResultCache cache){
+        RunResult[] results = new RunResult[replicas];
+        List<SimulationConfig> missing = new ArrayList<>();
+        List<Integer> missingIndices = new ArrayList<>();
+        for(int r = 0; r < replicas; r++){
+            SimulationConfig c = config.copy();
+            c.setSeed(config.getSeed() + r);
+            results[r] = cache != null ? cache.get(c, maxSteps) : null;
+            if(results[r] == null){
+                missing.add(c);
+                missingIndices.add(r);
+            }
+        }
+
+        List<Simulation> simulations = new Ensemble(missing, maxSteps).run();
+        for(int i = 0; i < simulations.size(); i++){
+            RunResult result = RunResult.of(simulations.get(i));
+            results[missingIndices.get(i)] = result;
+            if(cache != null){
+                cache.put(result, maxSteps);
+            }
+        }
+        return Arrays.asList(results);
+    }
+}
@@ -0,0 +1,324 @@
+package runner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.SimulationConfig;
+
+/**
+ * Hands out simulation runs to worker processes that connect over TCP and collects their results.
+ * Work of a worker that disconnects or stops sending heartbeats is put back into the queue.
+ */
+public class SweepCoordinator {
+
+    private final ServerSocket server;
+    /**
+     * Tasks waiting for a worker, all submitted tasks and results by task id.
+     */
+    private final LinkedBlockingDeque<SweepTask> queue = new LinkedBlockingDeque<>();
+    private final Map<Long, SweepTask> tasks = new ConcurrentHashMap<>();
+    private final Map<Long, RunResult> results = new ConcurrentHashMap<>();
+    private final AtomicLong nextTaskId = new AtomicLong();
+    /**
+     * Connected workers.
+     */
+    private final Map<WorkerConnection, Boolean> workers = new ConcurrentHashMap<>();
+    /**
+     * A worker is considered dead if nothing was heard from it for this long.
+     */
+    private final long heartbeatTimeoutMillis;
+    private final ScheduledThreadPoolExecutor monitor = new ScheduledThreadPoolExecutor(1);
+    private volatile boolean closed = false;
+
+    /**
+     * Create coordinator that listens on the loopback interface.
+     * 
+     * @param port port to listen on, 0 for any free port.
+     * @param heartbeatTimeoutMillis time after which a silent worker is considered dead.
+     */
+    public SweepCoordinator(int port, long heartbeatTimeoutMillis) throws IOException {
+        this(new ServerSocket(port, 50, InetAddress.getLoopbackAddress()), heartbeatTimeoutMillis);
+    }
+
+    public SweepCoordinator(ServerSocket server, long heartbeatTimeoutMillis){
+        this.server = server;
+        this.heartbeatTimeoutMillis = heartbeatTimeoutMillis;
+    }
+
+    /**
+     * Queue a simulation run.
+     * 
+     * @param config parameters of the run, including its seed.
+     * @param maxSteps step limit of the run.
+     * @return id of the task.
+     */
+    public long submit(SimulationConfig config, int maxSteps){
+        SweepTask task = new SweepTask(nextTaskId.getAndIncrement(), config, maxSteps);
+        tasks.put(task.getId(), task);
+        queue.add(task);
+        return task.getId();
+    }
+
+    /**
+     * Start accepting workers and watching their heartbeats.
+     */
+    public void start(){
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                acceptWorkers();
+            }
+        }, "sweep-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        long interval = Math.max(heartbeatTimeoutMillis / 4, 1);
+        monitor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                checkHeartbeats();
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void acceptWorkers(){
+        while(!closed){
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                WorkerConnection worker = new WorkerConnection(socket);
+                workers.put(worker, Boolean.TRUE);
+                Thread t = new Thread(worker, "sweep-worker-" + socket.getPort());
+                t.setDaemon(true);
+                t.start();
+            } catch (IOException e) {
+                if(!closed){
+                    e.printStackTrace(System.err);
+                }
+            }
+        }
+    }
+
+    private void checkHeartbeats(){
+        long now = System.currentTimeMillis();
+        for(WorkerConnection worker: workers.keySet()){
+            if(now - worker.lastSeen > heartbeatTimeoutMillis){
+                worker.fail();
+            }
+        }
+    }
+
+    /**
+     * Wait until every submitted task has a result.
+     * 
+     * @param timeoutMillis maximum time to wait.
+     * @return whether all results have arrived.
+     */
+    public synchronized boolean awaitResults(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while(!isDone()){
+            long left = deadline - System.currentTimeMillis();
+            if(left <= 0){
+                return false;
+            }
+            wait(left);
+        }
+        return true;
+    }
+
+    private boolean isDone(){
+        return results.size() == tasks.size();
+    }
+
+    private synchronized void resultArrived(){
+        notifyAll();
+    }
+
+    /**
+     * @return results in the order in which tasks were submitted.
+     */
+    public List<RunResult> getResults(){
+        List<RunResult> ordered = new ArrayList<>(results.size());
+        for(long id = 0; id < nextTaskId.get(); id++){
+            RunResult result = results.get(id);
+            if(result != null){
+                ordered.add(result);
+            }
+        }
+        return ordered;
+    }
+
+    public int getPort(){
+        return server.getLocalPort();
+    }
+
+    public int getAmountWorkers(){
+        return workers.size();
+    }
+
+    /**
+     * Tell connected workers to stop and stop listening.
+     */
+    public void close(){
+        closed = true;
+        monitor.shutdownNow();
+        for(WorkerConnection worker: workers.keySet()){
+            worker.shutdown();
+        }
+        try {
+            server.close();
+        } catch (IOException e) {
+            e.printStackTrace(System.err);
+        }
+    }
+
+    /**
+     * Connection to one worker process, served by its own thread.
+     */
+    private class WorkerConnection implements Runnable {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        /**
+         * Tasks handed to this worker without result yet.
+         */
+        private final Map<Long, SweepTask> inFlight = new ConcurrentHashMap<>();
+        private volatile long lastSeen = System.currentTimeMillis();
+        private final AtomicBoolean dead = new AtomicBoolean(false);
+
+        WorkerConnection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        @Override
+        public void run(){
+            try {
+                while(!dead.get()){
+                    byte type = in.readByte();
+                    lastSeen = System.currentTimeMillis();
+
+                    switch (type) {
+                        case SweepProtocol.REQUEST:
+                            sendTasks(in.readInt());
+                            break;
+                        case SweepProtocol.RESULT:
+                            receiveResult();
+                            break;
+                        case SweepProtocol.HEARTBEAT:
+                            break;
+                        default:
+                            throw new IOException("Unknown message type " + type);
+                    }
+                }
+            } catch (EOFException | SocketException e) {
+                // Worker went away, its tasks are reassigned below.
+            } catch (IOException e) {
+                e.printStackTrace(System.err);
+            } finally {
+                fail();
+            }
+        }
+
+        private void sendTasks(int batchSize) throws IOException {
+            if(isDone()){
+                shutdown();
+                return;
+            }
+
+            List<SweepTask> batch = new ArrayList<>(batchSize);
+            synchronized (inFlight) {
+                while(!dead.get() && batch.size() < batchSize){
+                    SweepTask task = queue.poll();
+                    if(task == null){
+                        break;
+                    }
+                    // Tasks that were reassigned may have been finished by their first worker after all.
+                    if(!results.containsKey(task.getId())){
+                        inFlight.put(task.getId(), task);
+                        batch.add(task);
+                    }
+                }
+            }
+
+            synchronized (out) {
+                out.writeByte(SweepProtocol.TASKS);
+                out.writeInt(batch.size());
+                for(SweepTask task: batch){
+                    out.writeLong(task.getId());
+                    out.writeInt(task.getMaxSteps());
+                    SweepProtocol.writeConfig(out, task.getConfig());
+                }
+                out.flush();
+            }
+        }
+
+        private void receiveResult() throws IOException {
+            long id = in.readLong();
+            SweepTask task = tasks.get(id);
+            if(task == null){
+                throw new IOException("Result for unknown task " + id);
+            }
+            RunResult result = SweepProtocol.readResult(in, task.getConfig());
+            inFlight.remove(id);
+            if(results.putIfAbsent(id, result) == null){
+                resultArrived();
+            }
+        }
+
+        /**
+         * Tell the worker that there is no more work.
+         */
+        void shutdown(){
+            try {
+                synchronized (out) {
+                    out.writeByte(SweepProtocol.SHUTDOWN);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // Worker is gone already.
+            }
+        }
+
+        /**
+         * Drop this worker and put its unfinished tasks back in front of the queue.
+         */
+        void fail(){
+            if(!dead.compareAndSet(false, true)){
+                return;
+            }
+            workers.remove(this);
+            synchronized (inFlight) {
+                for(SweepTask task: inFlight.values()){
+                    if(!results.containsKey(task.getId())){
+                        queue.addFirst(task);
+                    }
+                }
+                inFlight.clear();
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nothing left to clean up.
+            }
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package runner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import model.MinerDistribution;
+import model.SimulationConfig;
+
+/**
+ * Command line entry point for sweeps over several processes.
+ * 
+ * coordinator: queue the grid of runs, wait for workers on the given port and print results.
+ * worker: connect to a coordinator and run its tasks.
+ * local: coordinator plus the given amount of worker JVMs on this machine, connected over loopback.
+ * ensemble: run the grid in this JVM, all seeds of a configuration as one batch on one of the given amount of threads.
+ * continuation: run the grid in this JVM as chains along one axis (--along miners, pools or solo), every run
+ * of a chain starting from the state the previous one ended in (see WarmStart). Chains run on the given amount of threads.
+ * 
+ * Workers and ensembles take results of earlier runs from the cache directory given with --cache (see ResultCache).
+ * 
+ * Example: java -cp simulation_pool_mining.jar runner.SweepMain local --workers 4 --miners 10,20 --pools 2,3 --solo 0 --seeds 5
+ */
+public class SweepMain {
+
+    private static final long HEARTBEAT_INTERVAL_MILLIS = 1000;
+    private static final long HEARTBEAT_TIMEOUT_MILLIS = 5000;
+
+    public static void main(String[] args) throws Exception {
+        if(args.length == 0){
+            System.err.println("Usage: SweepMain coordinator|worker|local|ensemble|continuation [--option value]...");
+            System.exit(1);
+        }
+
+        Map<String, String> options = parseOptions(args);
+        switch (args[0]) {
+            case "coordinator":
+                runCoordinator(options, 0);
+                break;
+            case "worker":
+                SweepWorker worker = new SweepWorker(option(options, "host", "127.0.0.1"), Integer.parseInt(option(options, "port", "0")),
+                        Integer.parseInt(option(options, "batch", "4")), HEARTBEAT_INTERVAL_MILLIS);
+                worker.setCache(createCache(options));
+                int finished = worker.run();
+                System.err.println("Worker finished " + finished + " runs");
+                break;
+            case "local":
+                runCoordinator(options, Integer.parseInt(option(options, "workers", "2")));
+                break;
+            case "ensemble":
+                runEnsembles(options);
+                break;
+            case "continuation":
+                runContinuation(options);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode " + args[0]);
+        }
+    }
+
+    /**
+     * Queue the grid of runs, optionally start local workers and print results once all are done.
+     */
+    private static void runCoordinator(Map<String, String> options, int localWorkers) throws IOException, InterruptedException {
+        SweepCoordinator coordinator = new SweepCoordinator(Integer.parseInt(option(options, "port", "0")), HEARTBEAT_TIMEOUT_MILLIS);
+        int maxSteps = Integer.parseInt(option(options, "max-steps", "100000"));
+        int seeds = Integer.parseInt(option(options, "seeds", "1"));
+        long firstSeed = Long.parseLong(option(options, "first-seed", "0"));
+
+        for(int miners: parseList(option(options, "miners", "10"))){
+            for(int pools: parseList(option(options, "pools", "2"))){
+                for(int solo: parseList(option(options, "solo", "0"))){
+                    for(int s = 0; s < seeds; s++){
+                        SimulationConfig config = new SimulationConfig(miners, pools, solo, firstSeed + s);
+                        applyConvergenceOptions(config, options);
+                        applySearchOptions(config, options);
+                        coordinator.submit(config, maxSteps);
+                    }
+                }
+            }
+        }
+
+        coordinator.start();
+        System.err.println("Coordinator listening on port " + coordinator.getPort());
+
+        List<Process> processes = new ArrayList<>();
+        for(int i = 0; i < localWorkers; i++){
+            processes.add(startLocalWorker(coordinator.getPort(), options, i));
+        }
+
+        coordinator.awaitResults(Long.MAX_VALUE);
+        coordinator.close();
+        for(Process p: processes){
+            p.waitFor();
+        }
+
+        System.out.println("miners,pools,solo,seed,time,converged,cycle,pool sizes");
+        for(RunResult result: coordinator.getResults()){
+            System.out.println(result.toCsv());
+        }
+    }
+
+    /**
+     * Run every configuration of the grid as one ensemble of its seeds and print results.
+     */
+    private static void runEnsembles(Map<String, String> options) throws IOException, InterruptedException, ExecutionException {
+        final int maxSteps = Integer.parseInt(option(options, "max-steps", "100000"));
+        final int seeds = Integer.parseInt(option(options, "seeds", "1"));
+        long firstSeed = Long.parseLong(option(options, "first-seed", "0"));
+        final ResultCache cache = createCache(options);
+        ExecutorService executor = Executors.newFixedThreadPool(Integer.parseInt(option(options, "threads",
+                Integer.toString(Runtime.getRuntime().availableProcessors()))));
+
+        List<Future<List<RunResult>>> futures = new ArrayList<>();
+        for(int miners: parseList(option(options, "miners", "10"))){
+            for(int pools: parseList(option(options, "pools", "2"))){
+                for(int solo: parseList(option(options, "solo", "0"))){
+                    final SimulationConfig config = new SimulationConfig(miners, pools, solo, firstSeed);
+                    applyConvergenceOptions(config, options);
+                    applySearchOptions(config, options);
+                    futures.add(executor.submit(new Callable<List<RunResult>>() {
+                        @Override
+                        public List<RunResult> call() {
+                            return SimulationRunner.runReplicas(config, seeds, maxSteps, cache);
+                        }
+                    }));
+                }
+            }
+        }
+        executor.shutdown();
+
+        System.out.println("miners,pools,solo,seed,time,converged,cycle,pool sizes");
+        for(Future<List<RunResult>> future: futures){
+            for(RunResult result: future.get()){
+                System.out.println(result.toCsv());
+            }
+        }
+    }
+
+    /**
+     * Split the grid into chains along one axis, one chain per seed and combination of the other axes,
+     * run every chain with warm starts and print results.
+     */
+    private static void runContinuation(Map<String, String> options) throws InterruptedException, ExecutionException {
+        final int maxSteps = Integer.parseInt(option(options, "max-steps", "100000"));
+        int seeds = Integer.parseInt(option(options, "seeds", "1"));
+        long firstSeed = Long.parseLong(option(options, "first-seed", "0"));
+        String along = option(options, "along", "miners");
+
+        Map<String, List<SimulationConfig>> chains = new LinkedHashMap<>();
+        for(int miners: parseList(option(options, "miners", "10"))){
+            for(int pools: parseList(option(options, "pools", "2"))){
+                for(int solo: parseList(option(options, "solo", "0"))){
+                    for(int s = 0; s < seeds; s++){
+                        String key;
+                        switch (along) {
+                            case "miners":
+                                key = pools + "," + solo;
+                                break;
+                            case "pools":
+                                key = miners + "," + solo;
+                                break;
+                            case "solo":
+                                key = miners + "," + pools;
+                                break;
+                            default:
+                                throw new IllegalArgumentException("Unknown axis " + along);
+                        }
+                        key += "," + (firstSeed + s);
+
+                        SimulationConfig config = new SimulationConfig(miners, pools, solo, firstSeed + s);
+                        applyConvergenceOptions(config, options);
+                        applySearchOptions(config, options);
+                        if(!chains.containsKey(key)){
+                            chains.put(key, new ArrayList<SimulationConfig>());
+                        }
+                        chains.get(key).add(config);
+                    }
+                }
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Integer.parseInt(option(options, "threads",
+                Integer.toString(Runtime.getRuntime().availableProcessors()))));
+        List<Future<List<RunResult>>> futures = new ArrayList<>();
+        for(final List<SimulationConfig> chain: chains.values()){
+            futures.add(executor.submit(new Callable<List<RunResult>>() {
+                @Override
+                public List<RunResult> call() {
+                    return SimulationRunner.runChain(chain, maxSteps);
+                }
+            }));
+        }
+        executor.shutdown();
+
+        System.out.println("miners,pools,solo,seed,time,converged,cycle,pool sizes");
+        for(Future<List<RunResult>> future: futures){
+            for(RunResult result: future.get()){
+                System.out.println(result.toCsv());
+            }
+        }
+    }
+
+    /**
+     * Switch to tolerant convergence detection if any of its options is given.
+     */
+    static void applyConvergenceOptions(SimulationConfig config, Map<String, String> options){
+        if(!options.containsKey("quiet-steps") && !options.containsKey("window")){
+            return;
+        }
+        config.setToleranceConvergence(true);
+        config.setConvergenceQuietSteps(Integer.parseInt(option(options, "quiet-steps", "0")));
+        config.setConvergenceWindow(Integer.parseInt(option(options, "window", "0")));
+        config.setConvergenceRelativeTolerance(Double.parseDouble(option(options, "rel-tol", "1e-9")));
+        config.setConvergenceAbsoluteTolerance(Double.parseDouble(option(options, "abs-tol", "1e-12")));
+        config.setConvergenceHysteresis(Double.parseDouble(option(options, "hysteresis", "2")));
+    }
+
+    /**
+     * Switch to approximate best responses if a search radius is given, to common random numbers if asked,
+     * distribute miners as given with --distribution (see MinerDistribution)
+     * let --decision-batch miners decide together with the given --inertia, schedule decisions with --dirty-scheduling
+     * and remember --cycle-history states for cycle detection (0 turns it off).
+     */
+    static void applySearchOptions(SimulationConfig config, Map<String, String> options){
+        config.setLocalSearchRadius(Integer.parseInt(option(options, "search-radius", "0")));
+        config.setLocalSearchRestarts(Integer.parseInt(option(options, "search-restarts", "3")));
+        config.setCommonRandomNumbers(Boolean.parseBoolean(option(options, "common-random", "false")));
+        config.setMinerDistribution(MinerDistribution.parse(option(options, "distribution", "round-robin")));
+        config.setDecisionBatch(Integer.parseInt(option(options, "decision-batch", "1")));
+        config.setDecisionInertia(Double.parseDouble(option(options, "inertia", "0")));
+        config.setDirtyScheduling(Boolean.parseBoolean(option(options, "dirty-scheduling", "false")));
+        if(options.containsKey("cycle-history")){
+            config.setCycleHistoryCapacity(Integer.parseInt(options.get("cycle-history")));
+        }
+    }
+
+    /**
+     * Start a worker JVM with the same class path as this one.
+     */
+    private static Process startLocalWorker(int port, Map<String, String> options, int index) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<String> command = new ArrayList<>(Arrays.asList(java, "-cp", System.getProperty("java.class.path"), SweepMain.class.getName(),
+                "worker", "--port", Integer.toString(port), "--batch", option(options, "batch", "4")));
+        for(String name: new String[]{"cache", "cache-mb"}){
+            if(options.containsKey(name)){
+                command.add("--" + name);
+                command.add(options.get(name));
+            }
+        }
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+        pb.redirectOutput(new File(System.getProperty("java.io.tmpdir"), "sweep-worker-" + index + ".log"));
+        return pb.start();
+    }
+
+    /**
+     * @return result cache in the directory given with --cache and at most --cache-mb megabytes (default 256), null if none is given.
+     */
+    static ResultCache createCache(Map<String, String> options) throws IOException {
+        if(!options.containsKey("cache")){
+            return null;
+        }
+        return new ResultCache(new File(options.get("cache")), Long.parseLong(option(options, "cache-mb", "256")) << 20);
+    }
+
+    private static Map<String, String> parseOptions(String[] args){
+        Map<String, String> options = new HashMap<>();
+        for(int i = 1; i + 1 < args.length; i += 2){
+            if(!args[i].startsWith("--")){
+                throw new IllegalArgumentException("Expected option but got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    static String option(Map<String, String> options, String name, String defaultValue){
+        return options.containsKey(name) ? options.get(name) : defaultValue;
+    }
+
+    private static List<Integer> parseList(String value){
+        List<Integer> list = new ArrayList<>();
+        for(String part: value.split(",")){
+            list.add(Integer.parseInt(part.trim()));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,130 @@
+package runner;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import model.MinerDistribution;
+import model.SimulationConfig;
+import model.WarmStart;
+
+/**
+ * Binary messages exchanged between sweep coordinator and workers.
+ * Every message starts with its type byte.
+ * 
+ * Worker to coordinator: REQUEST (batch size), RESULT (task id, result), HEARTBEAT.
+ * Coordinator to worker: TASKS (amount, then id, step limit and configuration of each task), SHUTDOWN.
+ * An empty TASKS message means that all remaining work is in progress elsewhere and the worker should ask again later.
+ */
+final class SweepProtocol {
+
+    static final byte REQUEST = 1;
+    static final byte RESULT = 2;
+    static final byte HEARTBEAT = 3;
+    static final byte TASKS = 4;
+    static final byte SHUTDOWN = 5;
+
+    private SweepProtocol(){}
+
+    static void writeConfig(DataOutputStream out, SimulationConfig config) throws IOException {
+        out.writeInt(config.getAmountMiners());
+        out.writeInt(config.getAmountPools());
+        out.writeInt(config.getAmountSoloMiners());
+        out.writeLong(config.getSeed());
+        out.writeBoolean(config.isUseNativeSolver());
+        out.writeInt(config.getCycleHistoryCapacity());
+        out.writeBoolean(config.isToleranceConvergence());
+        out.writeDouble(config.getConvergenceRelativeTolerance());
+        out.writeDouble(config.getConvergenceAbsoluteTolerance());
+        out.writeDouble(config.getConvergenceHysteresis());
+        out.writeInt(config.getConvergenceQuietSteps());
+        out.writeInt(config.getConvergenceWindow());
+        out.writeInt(config.getLocalSearchRadius());
+        out.writeInt(config.getLocalSearchRestarts());
+        out.writeInt(config.getSnapshotInterval());
+        out.writeBoolean(config.isCommonRandomNumbers());
+        out.writeUTF(config.getMinerDistribution().toString());
+        out.writeInt(config.getDecisionBatch());
+        out.writeDouble(config.getDecisionInertia());
+        out.writeBoolean(config.isDirtyScheduling());
+
+        WarmStart warmStart = config.getWarmStart();
+        out.writeBoolean(warmStart != null);
+        if(warmStart != null){
+            int[] loyal = warmStart.getLoyalMiners();
+            int[][] rates = warmStart.getInfiltrationRates();
+            out.writeInt(loyal.length);
+            for(int i = 0; i < loyal.length; i++){
+                out.writeInt(loyal[i]);
+                for(int rate: rates[i]){
+                    out.writeInt(rate);
+                }
+            }
+        }
+    }
+
+    static SimulationConfig readConfig(DataInputStream in) throws IOException {
+        SimulationConfig config = new SimulationConfig(in.readInt(), in.readInt(), in.readInt(), in.readLong());
+        config.setUseNativeSolver(in.readBoolean());
+        config.setCycleHistoryCapacity(in.readInt());
+        config.setToleranceConvergence(in.readBoolean());
+        config.setConvergenceRelativeTolerance(in.readDouble());
+        config.setConvergenceAbsoluteTolerance(in.readDouble());
+        config.setConvergenceHysteresis(in.readDouble());
+        config.setConvergenceQuietSteps(in.readInt());
+        config.setConvergenceWindow(in.readInt());
+        config.setLocalSearchRadius(in.readInt());
+        config.setLocalSearchRestarts(in.readInt());
+        config.setSnapshotInterval(in.readInt());
+        config.setCommonRandomNumbers(in.readBoolean());
+        config.setMinerDistribution(MinerDistribution.parse(in.readUTF()));
+        config.setDecisionBatch(in.readInt());
+        config.setDecisionInertia(in.readDouble());
+        config.setDirtyScheduling(in.readBoolean());
+
+        if(in.readBoolean()){
+            int pools = in.readInt();
+            int[] loyal = new int[pools];
+            int[][] rates = new int[pools][pools];
+            for(int i = 0; i < pools; i++){
+                loyal[i] = in.readInt();
+                for(int j = 0; j < pools; j++){
+                    rates[i][j] = in.readInt();
+                }
+            }
+            config.setWarmStart(new WarmStart(loyal, rates));
+        }
+        return config;
+    }
+
+    /**
+     * Results are sent without their configuration, the coordinator knows it from the task id.
+     */
+    static void writeResult(DataOutputStream out, RunResult result) throws IOException {
+        out.writeInt(result.getTime());
+        out.writeBoolean(result.isConverged());
+        out.writeInt(result.getCycleLength());
+        out.writeInt(result.getPoolSizes().length);
+        for(int i = 0; i < result.getPoolSizes().length; i++){
+            out.writeInt(result.getPoolSizes()[i]);
+            out.writeDouble(result.getPoolIncomes()[i]);
+            out.writeDouble(result.getPoolIncomesNooneAttack()[i]);
+        }
+    }
+
+    static RunResult readResult(DataInputStream in, SimulationConfig config) throws IOException {
+        int time = in.readInt();
+        boolean converged = in.readBoolean();
+        int cycleLength = in.readInt();
+        int amountPools = in.readInt();
+        int[] sizes = new int[amountPools];
+        double[] incomes = new double[amountPools];
+        double[] incomesNooneAttack = new double[amountPools];
+        for(int i = 0; i < amountPools; i++){
+            sizes[i] = in.readInt();
+            incomes[i] = in.readDouble();
+            incomesNooneAttack[i] = in.readDouble();
+        }
+        return new RunResult(config, time, converged, cycleLength, sizes, incomes, incomesNooneAttack);
+    }
+}
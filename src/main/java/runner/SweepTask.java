@@ -0,0 +1,34 @@
+package runner;
+
+import model.SimulationConfig;
+
+/**
+ * One simulation run of a sweep.
+ */
+public class SweepTask {
+
+    private final long id;
+    private final SimulationConfig config;
+    /**
+     * Run is stopped after this amount of steps even if it has not converged.
+     */
+    private final int maxSteps;
+
+    public SweepTask(long id, SimulationConfig config, int maxSteps){
+        this.id = id;
+        this.config = config;
+        this.maxSteps = maxSteps;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public SimulationConfig getConfig() {
+        return config;
+    }
+
+    public int getMaxSteps() {
+        return maxSteps;
+    }
+}
@@ -0,0 +1,118 @@
+package runner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worker process of a sweep. Pulls batches of runs from the coordinator,
+ * runs them one after another and sends every result back as soon as it is done.
+ * Heartbeats are sent from a separate thread, so that long runs do not look like a dead worker.
+ */
+public class SweepWorker {
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    /**
+     * Amount of runs requested at once.
+     */
+    private final int batchSize;
+    private final long heartbeatIntervalMillis;
+    /**
+     * Time to wait before asking again when all remaining work is in progress elsewhere.
+     */
+    private final long retryMillis = 200;
+    private final ScheduledThreadPoolExecutor heartbeat = new ScheduledThreadPoolExecutor(1);
+    /**
+     * Results of earlier runs, null if every task is simulated.
+     */
+    private ResultCache cache;
+
+    public SweepWorker(String host, int port, int batchSize, long heartbeatIntervalMillis) throws IOException {
+        this.socket = new Socket(host, port);
+        this.socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.batchSize = batchSize;
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+    }
+
+    public void setCache(ResultCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Work until the coordinator has no more tasks.
+     * 
+     * @return amount of finished runs.
+     */
+    public int run() throws IOException, InterruptedException {
+        heartbeat.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    synchronized (out) {
+                        out.writeByte(SweepProtocol.HEARTBEAT);
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    heartbeat.shutdown();
+                }
+            }
+        }, heartbeatIntervalMillis, heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
+
+        int finished = 0;
+        try {
+            while(true){
+                synchronized (out) {
+                    out.writeByte(SweepProtocol.REQUEST);
+                    out.writeInt(batchSize);
+                    out.flush();
+                }
+
+                byte type = in.readByte();
+                if(type == SweepProtocol.SHUTDOWN){
+                    break;
+                }
+                if(type != SweepProtocol.TASKS){
+                    throw new IOException("Unknown message type " + type);
+                }
+
+                int amount = in.readInt();
+                List<SweepTask> batch = new ArrayList<>(amount);
+                for(int i = 0; i < amount; i++){
+                    long id = in.readLong();
+                    int maxSteps = in.readInt();
+                    batch.add(new SweepTask(id, SweepProtocol.readConfig(in), maxSteps));
+                }
+
+                if(batch.isEmpty()){
+                    Thread.sleep(retryMillis);
+                }
+
+                for(SweepTask task: batch){
+                    RunResult result = SimulationRunner.run(task.getConfig(), task.getMaxSteps(), cache);
+                    synchronized (out) {
+                        out.writeByte(SweepProtocol.RESULT);
+                        out.writeLong(task.getId());
+                        SweepProtocol.writeResult(out, result);
+                        out.flush();
+                    }
+                    finished++;
+                }
+            }
+        } finally {
+            heartbeat.shutdownNow();
+            socket.close();
+        }
+        return finished;
+    }
+}